@@ -0,0 +1,194 @@
+package emu.grasscutter.auth;
+
+import emu.grasscutter.utils.JsonUtils;
+import emu.grasscutter.utils.LatencyRecorder;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Verifies the combo tokens of logins against an external SDK server.
+ * One client is shared by all logins, so connections are reused, and the requests never block the caller.
+ * Successful verifications are remembered for a short time, e.g. for clients that reconnect right away.
+ * Request, failure and latency statistics are logged every minute at debug level.
+ */
+public final class SdkTokenVerifier {
+    // Not the server logger, so the verifier works without a running server, e.g. in tests
+    private static final Logger logger = LoggerFactory.getLogger(SdkTokenVerifier.class);
+    /* Amount of cached verifications after which the expired ones are dropped. */
+    private static final int CACHE_PURGE_SIZE = 4096;
+
+    private final URI sdkServer;
+    private final Duration timeout;
+    private final long cacheMillis;
+    private final ScheduledExecutorService executor;
+    private final HttpClient client;
+    /* Token and open id -> the verification result. */
+    private final Map<CacheKey, CachedVerification> cache = new ConcurrentHashMap<>();
+
+    private final LatencyRecorder latency = new LatencyRecorder(1024);
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private long lastReportedRequests;
+    private long lastReportedFailures;
+
+    /**
+     * @param sdkServer The URL the tokens are posted to.
+     * @param timeoutMillis How long a verification may take before it fails.
+     * @param cacheSeconds How long a successful verification is reused, 0 to not cache them.
+     */
+    public SdkTokenVerifier(String sdkServer, long timeoutMillis, long cacheSeconds) {
+        this.sdkServer = URI.create(sdkServer);
+        this.timeout = Duration.ofMillis(timeoutMillis);
+        this.cacheMillis = TimeUnit.SECONDS.toMillis(cacheSeconds);
+        this.executor = Executors.newScheduledThreadPool(2, new DefaultThreadFactory("sdk-verify", true));
+        this.client = HttpClient.newBuilder()
+            .connectTimeout(this.timeout)
+            .executor(this.executor)
+            .build();
+
+        this.executor.scheduleAtFixedRate(this::logStatistics, 1, 1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Verifies a combo token.
+     * @param comboToken The token the client sent.
+     * @param openId The account id the client sent.
+     * @return The account uid the SDK server returned, or null if the token is not valid.
+     *         Completes on a verifier thread, or right away when the verification is cached.
+     */
+    public CompletableFuture<Integer> verify(String comboToken, String openId) {
+        CacheKey key = new CacheKey(comboToken, openId);
+        CachedVerification cached = this.cache.get(key);
+        if (cached != null && cached.expiresAt() > System.currentTimeMillis()) {
+            this.cacheHits.increment();
+            return CompletableFuture.completedFuture(cached.accountUid());
+        }
+
+        String body = JsonUtils.encode(Map.of("combo_token", comboToken, "open_id", openId));
+        HttpRequest request = HttpRequest.newBuilder(this.sdkServer)
+            .timeout(this.timeout)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(body))
+            .build();
+
+        long start = System.nanoTime();
+        this.requests.increment();
+        return this.client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+            .handle((response, error) -> {
+                this.latency.record(System.nanoTime() - start);
+                Integer accountUid = error == null ? this.parseResponse(response) : null;
+
+                if (error != null) {
+                    this.failures.increment();
+                    logger.warn("Failed to verify a token with the SDK server: {}", error.toString());
+                } else if (accountUid != null) {
+                    this.remember(key, accountUid);
+                }
+                return accountUid;
+            });
+    }
+
+    @Nullable
+    private Integer parseResponse(HttpResponse<String> response) {
+        if (response.statusCode() != 200) {
+            this.failures.increment();
+            logger.warn("SDK server answered a token verification with status {}", response.statusCode());
+            return null;
+        }
+
+        try {
+            VerifyResult result = JsonUtils.decode(response.body(), VerifyResult.class);
+            if (result == null || result.retcode != 0 || result.data == null) {
+                return null;
+            }
+            return result.data.account_uid;
+        } catch (Exception e) {
+            this.failures.increment();
+            logger.warn("SDK server answered a token verification with invalid data", e);
+            return null;
+        }
+    }
+
+    private void remember(CacheKey key, int accountUid) {
+        if (this.cacheMillis <= 0) return;
+
+        long now = System.currentTimeMillis();
+        if (this.cache.size() >= CACHE_PURGE_SIZE) {
+            this.cache.values().removeIf(cached -> cached.expiresAt() <= now);
+        }
+        this.cache.put(key, new CachedVerification(accountUid, now + this.cacheMillis));
+    }
+
+    public long getRequests() {
+        return this.requests.sum();
+    }
+
+    public long getFailures() {
+        return this.failures.sum();
+    }
+
+    public long getCacheHits() {
+        return this.cacheHits.sum();
+    }
+
+    /**
+     * @return The 99th percentile of recent verification times, in milliseconds.
+     */
+    public long getLatencyP99Millis() {
+        return this.latency.getPercentileMillis(99);
+    }
+
+    public void logStatistics() {
+        if (!logger.isDebugEnabled()) {
+            return;
+        }
+
+        long requests = this.getRequests();
+        long failures = this.getFailures();
+        logger.debug("SDK token verifier: {} requests, {} failures and {} cache hits in total, {} requests and {} failures in the last minute, p99 latency {} ms",
+            requests, failures, this.getCacheHits(), requests - this.lastReportedRequests, failures - this.lastReportedFailures, this.getLatencyP99Millis());
+        this.lastReportedRequests = requests;
+        this.lastReportedFailures = failures;
+    }
+
+    public void shutdown() {
+        this.executor.shutdown();
+        this.cache.clear();
+    }
+
+    private record CacheKey(String comboToken, String openId) {}
+
+    private record CachedVerification(int accountUid, long expiresAt) {}
+
+    public static class VerifyResult {
+        public int retcode;
+        public VerifyResultData data;
+    }
+
+    public static class VerifyResultIpInfo {
+        public String country_code;
+    }
+
+    public static class VerifyResultData {
+        public boolean guest;
+        public int account_type;
+        public int account_uid;
+        public VerifyResultIpInfo ip_info;
+    }
+}
@@ -74,6 +74,8 @@ public class ConfigContainer {
     public static class Database {
         public DataStore server = new DataStore();
         public DataStore game = new DataStore();
+        /* Maximum time frequently saved documents wait before being written (milliseconds, 0 = save immediately) */
+        public int writeBehindDelay = 1000;
 
         public static class DataStore {
             public String connectionUri = "mongodb://localhost:27017";
@@ -115,6 +117,10 @@ public class ConfigContainer {
 
     public static class Account {
         public String sdkServer = "";
+        /* How long a token verification with the SDK server may take, in milliseconds. */
+        public int sdkServerTimeout = 5000;
+        /* How long a successful token verification is reused, in seconds. */
+        public int sdkTokenCacheSeconds = 60;
         public boolean autoCreate = false;
         public boolean EXPERIMENTAL_RealPassword = false;
         public String[] defaultPermissions = {};
@@ -156,6 +162,8 @@ public class ConfigContainer {
 
         /* Kcp internal work interval (milliseconds) */
         public int kcpInterval = 20;
+        /* Amount of game logic threads, worlds are spread over them (0 = amount of cores) */
+        public int logicThreads = 0;
         /* Controls whether packets should be logged in console or not */
         public ServerDebugMode logPackets = ServerDebugMode.NONE;
         /* Show packet payload in console or no (in any case the payload is shown in encrypted view) */
@@ -245,7 +253,8 @@ public class ConfigContainer {
         public AvatarLimits avatarLimits = new AvatarLimits();
         public int sceneEntityLimit = 1000; // Unenforced. TODO: Implement.
 
-        public boolean watchGachaConfig = false;
+        public boolean watchDataFiles = false; // Reloads banners, shops, drops and announcements when their files change.
+        @Deprecated public boolean watchGachaConfig = false; // Same as watchDataFiles.
         public boolean enableShopItems = true;
         public boolean staminaUsage = true;
         public boolean energyUsage = true;
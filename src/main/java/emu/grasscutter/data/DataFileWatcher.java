@@ -0,0 +1,129 @@
+package emu.grasscutter.data;
+
+import emu.grasscutter.Grasscutter;
+import emu.grasscutter.utils.FileUtils;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reloads data files of the user data directory when they change, e.g. Banners.json.
+ * Runs on its own thread, so reloading never stalls the game. Editors often write a file in several steps,
+ * so a reload only starts once its files have not changed for a moment.
+ * The reload functions should parse into new objects and publish them at once, as the game keeps running meanwhile.
+ */
+public final class DataFileWatcher {
+    private static final long DEBOUNCE_MILLIS = 500;
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final Path directory = FileUtils.getDataUserPath("");
+    private WatchService watchService;
+    private Thread thread;
+    private volatile boolean running;
+
+    /**
+     * Reloads something when one of its files changes.
+     * @param name The name of what is reloaded, for the log.
+     * @param reload Parses the files and publishes the result, called on the watcher thread.
+     * @param fileNames The names of the files in the data directory, either with extension or without to match any.
+     */
+    public void subscribe(String name, Runnable reload, String... fileNames) {
+        this.subscriptions.add(new Subscription(name, reload, Set.of(fileNames)));
+    }
+
+    public synchronized void start() {
+        if (this.running) return;
+
+        try {
+            this.watchService = FileSystems.getDefault().newWatchService();
+            this.directory.register(this.watchService,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            Grasscutter.getLogger().error("Unable to watch the data directory, data files will not be reloaded when they change.", e);
+            return;
+        }
+
+        this.running = true;
+        this.thread = new Thread(this::run, "data-watcher");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    public synchronized void shutdown() {
+        if (!this.running) return;
+
+        this.running = false;
+        try {
+            this.watchService.close();
+        } catch (IOException ignored) {}
+        this.thread.interrupt();
+    }
+
+    private void run() {
+        // Subscription -> time at which it is reloaded, unless its files change again before
+        Map<Subscription, Long> pending = new LinkedHashMap<>();
+
+        while (this.running) {
+            try {
+                WatchKey key;
+                if (pending.isEmpty()) {
+                    key = this.watchService.take();
+                } else {
+                    long wait = Collections.min(pending.values()) - System.currentTimeMillis();
+                    key = this.watchService.poll(Math.max(wait, 0), TimeUnit.MILLISECONDS);
+                }
+
+                if (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (!(event.context() instanceof Path changed)) continue;
+
+                        String fileName = changed.getFileName().toString();
+                        long reloadAt = System.currentTimeMillis() + DEBOUNCE_MILLIS;
+                        for (Subscription subscription : this.subscriptions) {
+                            if (subscription.matches(fileName)) {
+                                pending.put(subscription, reloadAt);
+                            }
+                        }
+                    }
+                    if (!key.reset()) {
+                        Grasscutter.getLogger().error("The data directory can no longer be watched, data files will not be reloaded when they change.");
+                        this.running = false;
+                    }
+                }
+
+                long now = System.currentTimeMillis();
+                Iterator<Map.Entry<Subscription, Long>> iterator = pending.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    var entry = iterator.next();
+                    if (entry.getValue() > now) continue;
+
+                    iterator.remove();
+                    this.reload(entry.getKey());
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                break;
+            }
+        }
+    }
+
+    private void reload(Subscription subscription) {
+        long start = System.nanoTime();
+        try {
+            subscription.reload().run();
+            Grasscutter.getLogger().info("Reloaded {} in {} ms.", subscription.name(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (Exception e) {
+            Grasscutter.getLogger().error("Failed to reload " + subscription.name() + ".", e);
+        }
+    }
+
+    private record Subscription(String name, Runnable reload, Set<String> fileNames) {
+        boolean matches(String fileName) {
+            return this.fileNames.contains(fileName)
+                || this.fileNames.contains(FileUtils.getFilenameWithoutExtension(fileName));
+        }
+    }
+}
@@ -16,6 +16,10 @@ public class DatabaseCounter {
 		this.count = 10000;
 	}
 	
+	public int getCount() {
+		return count;
+	}
+
 	public int getNextId() {
 		int id = ++count;
 		return id;
@@ -1,8 +1,16 @@
 package emu.grasscutter.database;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.stream.Stream;
 
+import javax.annotation.Nullable;
+
+import org.bson.types.ObjectId;
+
 import com.mongodb.client.result.DeleteResult;
 
 import dev.morphia.query.FindOptions;
@@ -17,6 +25,7 @@ import emu.grasscutter.game.avatar.Avatar;
 import emu.grasscutter.game.battlepass.BattlePassManager;
 import emu.grasscutter.game.friends.Friendship;
 import emu.grasscutter.game.gacha.GachaRecord;
+import emu.grasscutter.game.gacha.PlayerGachaInfo;
 import emu.grasscutter.game.home.GameHome;
 import emu.grasscutter.game.inventory.GameItem;
 import emu.grasscutter.game.mail.Mail;
@@ -219,11 +228,11 @@ public final class DatabaseHelper {
     }
 
     public static void savePlayer(Player character) {
-        DatabaseManager.getGameDatastore().save(character);
+        DatabaseManager.getWriteQueue().save(character, character.getUid());
     }
 
     public static void saveAvatar(Avatar avatar) {
-        DatabaseManager.getGameDatastore().save(avatar);
+        DatabaseManager.getWriteQueue().save(avatar, avatar.getOwnerId());
     }
 
     public static List<Avatar> getAvatars(Player player) {
@@ -231,12 +240,14 @@ public final class DatabaseHelper {
     }
 
     public static void saveItem(GameItem item) {
-        DatabaseManager.getGameDatastore().save(item);
+        DatabaseManager.getWriteQueue().save(item, item.getOwnerId());
     }
 
     public static boolean deleteItem(GameItem item) {
-        DeleteResult result = DatabaseManager.getGameDatastore().delete(item);
-        return result.wasAcknowledged();
+        return DatabaseManager.getWriteQueue().delete(item, item.getOwnerId(), () -> {
+            DeleteResult result = DatabaseManager.getGameDatastore().delete(item);
+            return result.wasAcknowledged();
+        });
     }
 
     public static List<GameItem> getInventoryItems(Player player) {
@@ -281,15 +292,71 @@ public final class DatabaseHelper {
         ).toList();
     }
 
-    public static long getGachaRecordsMaxPage(int ownerId, int page, int gachaType) {
-        return getGachaRecordsMaxPage(ownerId, page, gachaType, 10);
+    /**
+     * Gets the page of records right after a record, newest first.
+     * Seeks through the (ownerId, gachaType, transactionDate, _id) index instead of skipping the earlier pages.
+     * @param date The transaction date of the last record of the previous page, or null for the first page.
+     * @param id The id of the last record of the previous page, or null for the first page.
+     */
+    public static List<GachaRecord> getGachaRecordsBefore(int ownerId, int gachaType, @Nullable Date date, @Nullable ObjectId id, int pageSize) {
+        var query = DatabaseManager.getGameDatastore().find(GachaRecord.class).filter(
+            Filters.eq("ownerId", ownerId),
+            Filters.eq("gachaType", gachaType)
+        );
+        if (date != null && id != null) {
+            query.filter(Filters.or(
+                Filters.lt("transactionDate", date),
+                Filters.and(Filters.eq("transactionDate", date), Filters.lt("_id", id))
+            ));
+        }
+        return query.iterator(new FindOptions()
+                .sort(Sort.descending("transactionDate"), Sort.descending("_id"))
+                .limit(pageSize)
+        ).toList();
     }
 
-    public static long getGachaRecordsMaxPage(int ownerId, int page, int gachaType, int pageSize) {
-        long count = DatabaseManager.getGameDatastore().find(GachaRecord.class).filter(
+    /**
+     * Gets the page of records right before a record, newest first.
+     * @param date The transaction date of the first record of the next page.
+     * @param id The id of the first record of the next page.
+     */
+    public static List<GachaRecord> getGachaRecordsAfter(int ownerId, int gachaType, Date date, ObjectId id, int pageSize) {
+        List<GachaRecord> records = new ArrayList<>(DatabaseManager.getGameDatastore().find(GachaRecord.class).filter(
+            Filters.eq("ownerId", ownerId),
+            Filters.eq("gachaType", gachaType),
+            Filters.or(
+                Filters.gt("transactionDate", date),
+                Filters.and(Filters.eq("transactionDate", date), Filters.gt("_id", id))
+            )
+        ).iterator(new FindOptions()
+                .sort(Sort.ascending("transactionDate"), Sort.ascending("_id"))
+                .limit(pageSize)
+        ).toList());
+        Collections.reverse(records);
+        return records;
+    }
+
+    public static long countGachaRecords(int ownerId, int gachaType) {
+        return DatabaseManager.getGameDatastore().find(GachaRecord.class).filter(
             Filters.eq("ownerId", ownerId),
             Filters.eq("gachaType", gachaType)
         ).count();
+    }
+
+    /**
+     * @deprecated Counts all records of the banner, use {@link PlayerGachaInfo#getRecordCount} instead.
+     */
+    @Deprecated
+    public static long getGachaRecordsMaxPage(int ownerId, int page, int gachaType) {
+        return getGachaRecordsMaxPage(ownerId, page, gachaType, 10);
+    }
+
+    /**
+     * @deprecated Counts all records of the banner, use {@link PlayerGachaInfo#getRecordCount} instead.
+     */
+    @Deprecated
+    public static long getGachaRecordsMaxPage(int ownerId, int page, int gachaType, int pageSize) {
+        long count = countGachaRecords(ownerId, gachaType);
         return count / 10 + (count % 10 > 0 ? 1 : 0 );
     }
 
@@ -297,6 +364,13 @@ public final class DatabaseHelper {
         DatabaseManager.getGameDatastore().save(gachaRecord);
     }
 
+    /**
+     * Saves the records of a wish together, in one bulk write.
+     */
+    public static void saveGachaRecords(List<GachaRecord> gachaRecords, int ownerUid) {
+        DatabaseManager.getWriteQueue().saveAll(gachaRecords, ownerUid);
+    }
+
     public static List<Mail> getAllMail(Player player) {
         return DatabaseManager.getGameDatastore().find(Mail.class).filter(Filters.eq("ownerUid", player.getUid())).stream().toList();
     }
@@ -316,14 +390,14 @@ public final class DatabaseHelper {
 
     public static void saveQuest(GameMainQuest quest) {
         try {
-            DatabaseManager.getGameDatastore().save(quest);
+            DatabaseManager.getWriteQueue().save(quest, quest.getOwnerUid());
         } catch(Exception exception){
             Grasscutter.getLogger().error("Failed to save quest m{}",quest.getParentQuestId(), exception);
         }
     }
 
     public static boolean deleteQuest(GameMainQuest quest) {
-        return DatabaseManager.getGameDatastore().delete(quest).wasAcknowledged();
+        return DatabaseManager.getWriteQueue().delete(quest, quest.getOwnerUid(), () -> DatabaseManager.getGameDatastore().delete(quest).wasAcknowledged());
     }
 
     public static GameHome getHomeByUid(int id) {
@@ -334,8 +408,15 @@ public final class DatabaseHelper {
         DatabaseManager.getGameDatastore().save(gameHome);
     }
 
+    public static BattlePassManager getBattlePassByUid(int uid) {
+        return DatabaseManager.getGameDatastore().find(BattlePassManager.class).filter(Filters.eq("ownerUid", uid)).first();
+    }
+
     public static BattlePassManager loadBattlePass(Player player) {
-        BattlePassManager manager = DatabaseManager.getGameDatastore().find(BattlePassManager.class).filter(Filters.eq("ownerUid", player.getUid())).first();
+        return loadBattlePass(player, getBattlePassByUid(player.getUid()));
+    }
+
+    public static BattlePassManager loadBattlePass(Player player, BattlePassManager manager) {
         if (manager == null) {
             manager = new BattlePassManager(player);
             manager.save();
@@ -369,7 +450,11 @@ public final class DatabaseHelper {
     }
 
     public static void saveGroupInstance(SceneGroupInstance instance) {
-        DatabaseManager.getGameDatastore().save(instance);
+        DatabaseManager.getWriteQueue().save(instance, instance.getOwnerUid());
+    }
+
+    public static void saveGroupInstances(List<SceneGroupInstance> instances, int ownerUid) {
+        DatabaseManager.getWriteQueue().saveAll(instances, ownerUid);
     }
 
     public static SceneGroupInstance loadGroupInstance(int groupId, Player owner) {
@@ -377,8 +462,14 @@ public final class DatabaseHelper {
         return instance;
     }
 
+    public static List<SceneGroupInstance> loadGroupInstances(Collection<Integer> groupIds, Player owner) {
+        if (groupIds.isEmpty()) return List.of();
+        return DatabaseManager.getGameDatastore().find(SceneGroupInstance.class)
+            .filter(Filters.eq("ownerUid", owner.getUid()), Filters.in("groupId", groupIds)).stream().toList();
+    }
+
     public static void saveSceneInstanceData(SceneInstanceData instance) {
-        DatabaseManager.getGameDatastore().save(instance);
+        DatabaseManager.getWriteQueue().save(instance, instance.getOwnerUid());
     }
 
     public static SceneInstanceData loadSceneInstanceData(int sceneId, Player owner) {
@@ -2,32 +2,60 @@ package emu.grasscutter.database;
 
 import static emu.grasscutter.config.Configuration.*;
 
+import com.mongodb.ErrorCategory;
 import com.mongodb.MongoCommandException;
+import com.mongodb.MongoWriteException;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
 import com.mongodb.client.MongoDatabase;
 import com.mongodb.client.MongoIterable;
+import com.mongodb.client.model.ReturnDocument;
 
 import dev.morphia.Datastore;
+import dev.morphia.ModifyOptions;
 import dev.morphia.Morphia;
 import dev.morphia.annotations.Entity;
 import dev.morphia.mapping.Mapper;
 import dev.morphia.mapping.MapperOptions;
 
+import dev.morphia.query.updates.UpdateOperators;
 import dev.morphia.query.filters.Filters;
 import emu.grasscutter.Grasscutter;
 import emu.grasscutter.Grasscutter.ServerRunMode;
 import emu.grasscutter.database.codec.CodecProvider;
 import emu.grasscutter.game.Account;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public final class DatabaseManager {
     private static Datastore gameDatastore;
     private static Datastore dispatchDatastore;
+    private static DatabaseWriteQueue writeQueue;
+    // Runs independent reads concurrently, e.g. the queries of a player login
+    private static final ExecutorService readExecutor = Executors.newFixedThreadPool(
+        Math.max(4, Runtime.getRuntime().availableProcessors()), new DefaultThreadFactory("db-reader", true));
+
+    // Amount of ids reserved from a counter at once
+    private static final int ID_BLOCK_SIZE = 32;
+    private static final Map<String, IdBlock> idBlocks = new ConcurrentHashMap<>();
 
     public static Datastore getGameDatastore() {
         return gameDatastore;
     }
 
+    public static DatabaseWriteQueue getWriteQueue() {
+        return writeQueue;
+    }
+
+    public static ExecutorService getReadExecutor() {
+        return readExecutor;
+    }
+
     public static MongoDatabase getGameDatabase() {
         return getGameDatastore().getDatabase();
     }
@@ -72,6 +100,9 @@ public final class DatabaseManager {
         // Ensure indexes for the game datastore
         ensureIndexes(gameDatastore);
 
+        // Frequently saved documents are written in the background
+        writeQueue = new DatabaseWriteQueue(gameDatastore, DATABASE.writeBehindDelay);
+
         if (SERVER.runMode == ServerRunMode.GAME_ONLY) {
             MongoClient dispatchMongoClient = MongoClients.create(DATABASE.server.connectionUri);
 
@@ -105,19 +136,73 @@ public final class DatabaseManager {
         }
     }
 
-    public static synchronized int getNextId(Class<?> c) {
-        DatabaseCounter counter = getGameDatastore().find(DatabaseCounter.class).filter(Filters.eq("_id", c.getSimpleName())).first();
-        if (counter == null) {
-            counter = new DatabaseCounter(c.getSimpleName());
-        }
-        try {
-            return counter.getNextId();
-        } finally {
-            getGameDatastore().save(counter);
+    /**
+     * Hands out the next id of the class from a block reserved in memory.
+     * Ids are unique across restarts, the unused rest of a block is skipped after one.
+     */
+    public static int getNextId(Class<?> c) {
+        IdBlock block = idBlocks.get(c.getSimpleName());
+        if (block != null) {
+            int id = block.next.getAndIncrement();
+            if (id <= block.last) {
+                return id;
+            }
         }
+        return allocateId(c.getSimpleName());
     }
 
-    public static synchronized int getNextId(Object o) {
+    public static int getNextId(Object o) {
         return getNextId(o.getClass());
     }
+
+    private static synchronized int allocateId(String name) {
+        // Another thread might have reserved a new block already
+        IdBlock block = idBlocks.get(name);
+        if (block != null) {
+            int id = block.next.getAndIncrement();
+            if (id <= block.last) {
+                return id;
+            }
+        }
+
+        int last = reserveIds(name, ID_BLOCK_SIZE);
+        block = new IdBlock(last - ID_BLOCK_SIZE + 1, last);
+        idBlocks.put(name, block);
+        return block.next.getAndIncrement();
+    }
+
+    /**
+     * Atomically reserves the next ids of the counter.
+     * @return The last id of the reserved range.
+     */
+    private static int reserveIds(String name, int amount) {
+        for (;;) {
+            DatabaseCounter counter = getGameDatastore().find(DatabaseCounter.class)
+                .filter(Filters.eq("_id", name))
+                .modify(UpdateOperators.inc("count", amount))
+                .execute(new ModifyOptions().returnDocument(ReturnDocument.AFTER));
+            if (counter != null) {
+                return counter.getCount();
+            }
+
+            try {
+                getGameDatastore().insert(new DatabaseCounter(name));
+            } catch (MongoWriteException e) {
+                // Created by another server meanwhile
+                if (e.getError().getCategory() != ErrorCategory.DUPLICATE_KEY) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private static final class IdBlock {
+        private final AtomicInteger next;
+        private final int last;
+
+        private IdBlock(int first, int last) {
+            this.next = new AtomicInteger(first);
+            this.last = last;
+        }
+    }
 }
@@ -0,0 +1,363 @@
+package emu.grasscutter.database;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.DeleteOneModel;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.WriteModel;
+import dev.morphia.Datastore;
+import dev.morphia.mapping.codec.pojo.PropertyModel;
+import emu.grasscutter.Grasscutter;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.Getter;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentWriter;
+import org.bson.BsonValue;
+import org.bson.codecs.Codec;
+import org.bson.codecs.EncoderContext;
+import org.bson.types.ObjectId;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Write-behind queue for documents that are saved often, like items and avatars.
+ * Saving encodes the document right away on the calling thread, which owns it, and queues the encoded copy.
+ * Repeated saves of the same document are coalesced and written in bulk by a background thread
+ * at most {@code delay} milliseconds later, so the latest state wins.
+ * Deletes are queued the same way and replace a queued write of the document.
+ * A write that fails stays queued and is retried until it succeeds or the server stops.
+ */
+public final class DatabaseWriteQueue {
+    // Flush early when this many documents are waiting
+    private static final int FLUSH_THRESHOLD = 2048;
+    // A document that failed this many writes in a row is reported as an error, and again every time after as many more
+    private static final int ALARM_ATTEMPTS = 3;
+    // Flushes on shutdown before the remaining documents are given up
+    private static final int SHUTDOWN_FLUSHES = 3;
+    private static final ReplaceOptions UPSERT = new ReplaceOptions().upsert(true);
+    private static final EncoderContext ENCODER_CONTEXT = EncoderContext.builder().isEncodingCollectibleDocument(true).build();
+
+    private final Datastore datastore;
+    private final long delay;
+    private final ScheduledExecutorService executor;
+    private final Map<DocumentKey, PendingWrite> pending = new ConcurrentHashMap<>();
+    // Player uid -> flush of the documents of that player, until it is done
+    private final Map<Integer, CompletableFuture<Void>> ownerFlushes = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    // Held while writing, so a flush on shutdown can not overlap one of the writer thread
+    private final Object writeLock = new Object();
+    private volatile boolean running = true;
+
+    private final LongAdder writtenDocuments = new LongAdder();
+    private final LongAdder failedWrites = new LongAdder();
+    @Getter private volatile long lastFlushMillis;
+    @Getter private volatile long maxFlushMillis;
+    private long lastReportedDocuments;
+
+    /**
+     * @param delay The maximum time a document stays queued, in milliseconds. 0 writes synchronously.
+     */
+    public DatabaseWriteQueue(Datastore datastore, long delay) {
+        this.datastore = datastore;
+        this.delay = delay;
+        this.executor = Executors.newSingleThreadScheduledExecutor(new DefaultThreadFactory("db-writer", true));
+
+        if (delay > 0) {
+            this.executor.scheduleWithFixedDelay(this::flushPending, delay, delay, TimeUnit.MILLISECONDS);
+            this.executor.scheduleAtFixedRate(this::logStatistics, 1, 1, TimeUnit.MINUTES);
+        }
+    }
+
+    private boolean isDeferring() {
+        return this.delay > 0 && this.running;
+    }
+
+    /**
+     * Queues the document to be written. Must be called on the thread that modifies the document.
+     */
+    public void save(Object entity) {
+        this.save(entity, 0);
+    }
+
+    /**
+     * Queues the document to be written. Must be called on the thread that modifies the document.
+     * @param ownerUid The uid of the player the document belongs to, 0 if none. See {@link #flush(int)}.
+     */
+    public void save(Object entity, int ownerUid) {
+        if (!this.isDeferring() || !this.assignId(entity)) {
+            this.datastore.save(entity);
+            return;
+        }
+
+        this.queue(this.encode(entity, ownerUid));
+    }
+
+    /**
+     * Queues the documents to be written, or writes them in one bulk save when writes are not deferred.
+     * Must be called on the thread that modifies the documents.
+     * @param ownerUid The uid of the player the documents belong to, 0 if none.
+     */
+    public <T> void saveAll(List<T> entities, int ownerUid) {
+        if (entities.isEmpty()) return;
+        if (!this.isDeferring()) {
+            this.datastore.save(entities);
+            return;
+        }
+
+        for (T entity : entities) {
+            this.save(entity, ownerUid);
+        }
+    }
+
+    private void queue(PendingWrite write) {
+        this.pending.put(write.key(), write);
+        if (this.pending.size() >= FLUSH_THRESHOLD && this.flushScheduled.compareAndSet(false, true)) {
+            this.executor.execute(this::flushPending);
+        }
+    }
+
+    /**
+     * Gives a new document its id, as the queued copy needs it to be written.
+     * @return False if the document has no id and none can be generated.
+     */
+    private boolean assignId(Object entity) {
+        if (this.datastore.getMapper().getId(entity) != null) return true;
+
+        PropertyModel idProperty = this.datastore.getMapper().getEntityModel(entity.getClass()).getIdProperty();
+        if (idProperty == null || idProperty.getType() != ObjectId.class) return false;
+
+        idProperty.setValue(entity, new ObjectId());
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private PendingWrite encode(Object entity, int ownerUid) {
+        Codec<Object> codec = (Codec<Object>) this.datastore.getCodecRegistry().get(entity.getClass());
+        BsonDocument document = new BsonDocument();
+        codec.encode(new BsonDocumentWriter(document), entity, ENCODER_CONTEXT);
+
+        DocumentKey key = new DocumentKey(this.getCollectionName(entity), this.datastore.getMapper().getId(entity));
+        return new PendingWrite(key, document.get("_id"), document, ownerUid, 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private BsonValue encodeId(Object id) {
+        Codec<Object> codec = (Codec<Object>) this.datastore.getCodecRegistry().get(id.getClass());
+        BsonDocument document = new BsonDocument();
+        BsonDocumentWriter writer = new BsonDocumentWriter(document);
+        writer.writeStartDocument();
+        writer.writeName("_id");
+        codec.encode(writer, id, EncoderContext.builder().build());
+        writer.writeEndDocument();
+        return document.get("_id");
+    }
+
+    private String getCollectionName(Object entity) {
+        return this.datastore.getMapper().getEntityModel(entity.getClass()).getCollectionName();
+    }
+
+    /**
+     * Queues the delete of the document in place of a queued write of it, or runs the delete when writes are not deferred.
+     * @param ownerUid The uid of the player the document belongs to, 0 if none. See {@link #flush(int)}.
+     * @param delete Deletes the document synchronously.
+     * @return The result of the delete, true if it is queued.
+     */
+    public boolean delete(Object entity, int ownerUid, BooleanSupplier delete) {
+        Object id = this.datastore.getMapper().getId(entity);
+        if (id == null) return true;  // Never saved
+
+        DocumentKey key = new DocumentKey(this.getCollectionName(entity), id);
+        if (!this.isDeferring()) {
+            this.pending.remove(key);
+            return delete.getAsBoolean();
+        }
+
+        this.queue(new PendingWrite(key, this.encodeId(id), null, ownerUid, 0));
+        return true;
+    }
+
+    /**
+     * Writes the queued documents of a player in the background, e.g. when the player logs out.
+     * Documents that fail are retried until they are written, see {@link #whenFlushed(int)}.
+     */
+    public CompletableFuture<Void> flush(int ownerUid) {
+        if (!this.isDeferring()) return CompletableFuture.completedFuture(null);
+
+        CompletableFuture<Void> future = this.ownerFlushes.computeIfAbsent(ownerUid, uid -> new CompletableFuture<>());
+        this.executor.execute(() -> this.flushOwner(ownerUid, future));
+        return future;
+    }
+
+    /**
+     * @return Completes once the documents queued by {@link #flush(int)} for the player are written.
+     *         The player must not be loaded before, or the old documents would be read.
+     */
+    public CompletableFuture<Void> whenFlushed(int ownerUid) {
+        CompletableFuture<Void> future = this.ownerFlushes.get(ownerUid);
+        return future != null ? future : CompletableFuture.completedFuture(null);
+    }
+
+    private void flushOwner(int ownerUid, CompletableFuture<Void> future) {
+        this.writePending(write -> write.ownerUid() == ownerUid);
+
+        boolean remaining = this.pending.values().stream().anyMatch(write -> write.ownerUid() == ownerUid);
+        if (remaining && this.running) {
+            // Try again later, the player stays unable to log in meanwhile
+            this.executor.schedule(() -> this.flushOwner(ownerUid, future), Math.max(this.delay, 1000), TimeUnit.MILLISECONDS);
+            return;
+        }
+
+        if (remaining) {
+            Grasscutter.getLogger().error("Documents of player {} could not be written", ownerUid);
+        }
+        this.ownerFlushes.remove(ownerUid, future);
+        future.complete(null);
+    }
+
+    /**
+     * Writes every queued document and waits until that is done.
+     */
+    public void flush() {
+        if (this.pending.isEmpty()) return;
+
+        try {
+            this.executor.submit(this::flushPending).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Grasscutter.getLogger().error("Failed to flush the database write queue", e.getCause());
+        } catch (Exception e) {
+            // The executor is already shut down
+            this.flushPending();
+        }
+    }
+
+    /**
+     * Writes everything that is queued and saves synchronously from then on.
+     */
+    public void shutdown() {
+        this.running = false;
+        for (int i = 0; i < SHUTDOWN_FLUSHES && !this.pending.isEmpty(); i++) {
+            this.flush();
+        }
+        if (!this.pending.isEmpty()) {
+            Grasscutter.getLogger().error("{} documents could not be written before shutting down", this.pending.size());
+        }
+        this.executor.shutdown();
+        this.ownerFlushes.values().forEach(future -> future.complete(null));
+    }
+
+    /**
+     * @return The amount of documents waiting to be written.
+     */
+    public int getQueueDepth() {
+        return this.pending.size();
+    }
+
+    public long getWrittenDocuments() {
+        return this.writtenDocuments.sum();
+    }
+
+    public long getFailedWrites() {
+        return this.failedWrites.sum();
+    }
+
+    private void flushPending() {
+        this.flushScheduled.set(false);
+        this.writePending(write -> true);
+    }
+
+    private void writePending(Predicate<PendingWrite> filter) {
+        if (this.pending.isEmpty()) return;
+
+        synchronized (this.writeLock) {
+            long start = System.nanoTime();
+
+            // Take the queued documents, a document saved again meanwhile is queued anew
+            Map<String, List<PendingWrite>> byCollection = new HashMap<>();
+            for (Map.Entry<DocumentKey, PendingWrite> entry : this.pending.entrySet()) {
+                if (filter.test(entry.getValue()) && this.pending.remove(entry.getKey(), entry.getValue())) {
+                    byCollection.computeIfAbsent(entry.getKey().collection(), c -> new ArrayList<>()).add(entry.getValue());
+                }
+            }
+
+            byCollection.forEach(this::write);
+
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            this.lastFlushMillis = millis;
+            this.maxFlushMillis = Math.max(this.maxFlushMillis, millis);
+        }
+    }
+
+    private void write(String collectionName, List<PendingWrite> writes) {
+        MongoCollection<BsonDocument> collection = this.datastore.getDatabase().getCollection(collectionName, BsonDocument.class);
+        try {
+            collection.bulkWrite(writes.stream()
+                .map(PendingWrite::toModel)
+                .toList(), new BulkWriteOptions().ordered(false));
+            this.writtenDocuments.add(writes.size());
+            return;
+        } catch (Exception e) {
+            Grasscutter.getLogger().debug("Bulk write of {} documents to {} failed, writing them one by one", writes.size(), collectionName, e);
+        }
+
+        for (PendingWrite write : writes) {
+            try {
+                if (write.isDelete()) {
+                    collection.deleteOne(new BsonDocument("_id", write.id()));
+                } else {
+                    collection.replaceOne(new BsonDocument("_id", write.id()), write.document(), UPSERT);
+                }
+                this.writtenDocuments.increment();
+            } catch (Exception e) {
+                this.failedWrites.increment();
+                int attempts = write.attempts() + 1;
+                if (attempts % ALARM_ATTEMPTS == 0) {
+                    Grasscutter.getLogger().error("Failed to write a document to {} {} times, it stays queued", collectionName, attempts, e);
+                }
+                // A newer copy queued meanwhile replaces this one
+                this.pending.putIfAbsent(write.key(), new PendingWrite(write.key(), write.id(), write.document(), write.ownerUid(), attempts));
+            }
+        }
+    }
+
+    private void logStatistics() {
+        if (!Grasscutter.getLogger().isDebugEnabled()) {
+            return;
+        }
+
+        long written = this.getWrittenDocuments();
+        Grasscutter.getLogger().debug("Database write queue: queue depth {}, {} documents written in the last minute, last flush {} ms, max flush {} ms, {} failed writes",
+            this.getQueueDepth(), written - this.lastReportedDocuments, this.lastFlushMillis, this.maxFlushMillis, this.getFailedWrites());
+        this.lastReportedDocuments = written;
+    }
+
+    // A write without a document deletes it
+    private record PendingWrite(DocumentKey key, BsonValue id, BsonDocument document, int ownerUid, int attempts) {
+        boolean isDelete() {
+            return this.document == null;
+        }
+
+        WriteModel<BsonDocument> toModel() {
+            BsonDocument filter = new BsonDocument("_id", this.id);
+            return this.isDelete() ? new DeleteOneModel<>(filter) : new ReplaceOneModel<>(filter, this.document, UPSERT);
+        }
+    }
+
+    // The id is the one of the entity, not the encoded one, so deletes can find the write
+    private record DocumentKey(String collection, Object id) {}
+}
@@ -59,7 +59,7 @@ public class Avatar {
     @Getter protected float currentEnergy;
 
     @Transient @Getter protected final Int2ObjectMap<GameItem> equips = new Int2ObjectOpenHashMap<>();
-    @Transient @Getter protected final Int2FloatOpenHashMap fightProperties = new Int2FloatOpenHashMap();
+    @Transient @Getter protected final FightPropertyMap fightProperties = new FightPropertyMap();
     @Transient @Getter protected final Int2FloatOpenHashMap fightPropOverrides = new Int2FloatOpenHashMap();
     @Transient @Getter protected final Set<String> extraAbilityEmbryos = new HashSet<>();
 
@@ -584,6 +584,8 @@ public class Avatar {
                 getPlayer().sendPacket(new PacketAbilityChangeNotify(entity));
             }
         }
+        // All properties were sent above, or are sent with the avatar info on login
+        this.fightProperties.clearDirty();
     }
 
     public void addToExtraAbilityEmbryos(String openConfig) {
@@ -16,16 +16,17 @@ import emu.grasscutter.server.game.GameServer;
 import emu.grasscutter.utils.Position;
 import emu.grasscutter.utils.Utils;
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMaps;
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 
 import java.util.List;
 
 public class DropSystem extends BaseGameSystem {
-    private final Int2ObjectMap<List<DropData>> dropData;
+    // Replaced as a whole on reload
+    private volatile Int2ObjectMap<List<DropData>> dropData = Int2ObjectMaps.emptyMap();
 
     public DropSystem(GameServer server) {
         super(server);
-        this.dropData = new Int2ObjectOpenHashMap<>();
         this.load();
     }
 
@@ -34,12 +35,12 @@ public class DropSystem extends BaseGameSystem {
     }
 
     public synchronized void load() {
-        getDropData().clear();
+        Int2ObjectMap<List<DropData>> dropData = new Int2ObjectOpenHashMap<>();
         try {
             List<DropInfo> banners = DataLoader.loadList("Drop.json", DropInfo.class);
             if (banners.size() > 0) {
                 for (DropInfo di : banners) {
-                    getDropData().put(di.getMonsterId(), di.getDropDataList());
+                    dropData.put(di.getMonsterId(), di.getDropDataList());
                 }
                 Grasscutter.getLogger().debug("Drop data successfully loaded.");
             } else {
@@ -47,7 +48,9 @@ public class DropSystem extends BaseGameSystem {
             }
         } catch (Exception e) {
             Grasscutter.getLogger().error("Unable to load drop data.", e);
+            return;
         }
+        this.dropData = dropData;
     }
     private void addDropEntity(DropData dd, Scene dropScene, ItemData itemData, Position pos, int num, Player target) {
         if (!dd.isGive() && (itemData.getItemType() != ItemType.ITEM_VIRTUAL || itemData.getGadgetId() != 0)) {
@@ -90,9 +93,9 @@ public class DropSystem extends BaseGameSystem {
     }
 
     public void callDrop(EntityMonster em) {
-        int id = em.getMonsterData().getId();
-        if (getDropData().containsKey(id)) {
-            for (DropData dd : getDropData().get(id)) {
+        List<DropData> drops = getDropData().get(em.getMonsterData().getId());
+        if (drops != null) {
+            for (DropData dd : drops) {
                 if (dd.isShare())
                     processDrop(dd, em, null);
                 else {
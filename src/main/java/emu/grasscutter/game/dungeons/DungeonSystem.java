@@ -162,7 +162,7 @@ public class DungeonSystem extends BaseGameSystem {
         if (isQuitImmediately) {
             transferTask.run();
         } else {
-            int delayTaskId = Grasscutter.getGameServer().getScheduler().scheduleDelayedTask(transferTask, delayExitTime);
+            int delayTaskId = Grasscutter.getGameServer().getScheduler().scheduleDelayedTask(transferTask, delayExitTime, player.getSession()::execute);
             Optional.ofNullable(dungeonManager).ifPresent(m -> m.setDelayExitTaskId(delayTaskId));
         }
     }
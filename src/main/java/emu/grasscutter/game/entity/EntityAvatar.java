@@ -1,6 +1,7 @@
 package emu.grasscutter.game.entity;
 
 import emu.grasscutter.GameConstants;
+import emu.grasscutter.Grasscutter;
 import emu.grasscutter.data.GameData;
 import emu.grasscutter.data.excels.AvatarData;
 import emu.grasscutter.data.excels.AvatarSkillDepotData;
@@ -18,19 +19,20 @@ import org.anime_game_servers.multi_proto.gi.messages.general.PlayerDieType;
 import org.anime_game_servers.multi_proto.gi.messages.general.PropChangeReason;
 import emu.grasscutter.server.event.player.PlayerMoveEvent;
 import emu.grasscutter.server.packet.send.PacketEntityFightPropChangeReasonNotify;
-import emu.grasscutter.server.packet.send.PacketEntityFightPropUpdateNotify;
 import emu.grasscutter.utils.Position;
 import emu.grasscutter.utils.ProtoHelper;
 import emu.grasscutter.utils.Utils;
 import it.unimi.dsi.fastutil.ints.Int2FloatMap;
 import lombok.Getter;
 import lombok.val;
+import org.anime_game_servers.multi_proto.gi.messages.general.Vector;
 import org.anime_game_servers.multi_proto.gi.messages.general.ability.AbilityControlBlock;
 import org.anime_game_servers.multi_proto.gi.messages.general.ability.AbilityEmbryo;
 import org.anime_game_servers.multi_proto.gi.messages.general.ability.AbilitySyncStateInfo;
 import org.anime_game_servers.multi_proto.gi.messages.general.entity.SceneReliquaryInfo;
 import org.anime_game_servers.multi_proto.gi.messages.scene.entity.*;
 
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -149,7 +151,7 @@ public class EntityAvatar extends GameEntity {
         this.avatar.setCurrentEnergy(curEnergyProp, 0);
 
         // Send packets.
-        this.getScene().broadcastPacket(new PacketEntityFightPropUpdateNotify(this, curEnergyProp));
+        this.getScene().queueFightPropSync(this);
 
         if (reason == ChangeEnergyReason.CHANGE_ENERGY_SKILL_START) {
             this.getScene().broadcastPacket(new PacketEntityFightPropChangeReasonNotify(this, curEnergyProp, -curEnergy, reason));
@@ -164,7 +166,7 @@ public class EntityAvatar extends GameEntity {
             return false;
         }
         this.getAvatar().setCurrentEnergy(curEnergyProp, amount);
-        this.getScene().broadcastPacket(new PacketEntityFightPropUpdateNotify(this, curEnergyProp));
+        this.getScene().queueFightPropSync(this);
         return true;
     }
 
@@ -309,4 +311,15 @@ public class EntityAvatar extends GameEntity {
         // Set position and rotation.
         super.move(event.getDestination(), rotation);
     }
+
+    @Override
+    public void move(Vector position, @Nullable Vector rotation) {
+        if (Grasscutter.getPluginManager().hasListeners(PlayerMoveEvent.class)) {
+            // The event works with positions
+            this.move(new Position(position), rotation != null ? new Position(rotation) : this.getRotation());
+            return;
+        }
+
+        super.move(position, rotation);
+    }
 }
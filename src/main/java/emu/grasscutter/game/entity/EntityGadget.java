@@ -24,7 +24,7 @@ import emu.grasscutter.server.packet.send.PacketSceneTimeNotify;
 import emu.grasscutter.utils.Position;
 import emu.grasscutter.utils.ProtoHelper;
 import it.unimi.dsi.fastutil.ints.Int2FloatMap;
-import it.unimi.dsi.fastutil.ints.Int2FloatOpenHashMap;
+import emu.grasscutter.game.props.FightPropertyMap;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
@@ -54,7 +54,7 @@ public class EntityGadget extends EntityBaseGadget implements ConfigAbilityDataA
     @Getter @Setter private int pointType;
     @Getter private GadgetContent content;
     @Getter(onMethod = @__(@Override), lazy = true)
-    private final Int2FloatMap fightProperties = new Int2FloatOpenHashMap();
+    private final Int2FloatMap fightProperties = new FightPropertyMap();
     @Getter @Setter private SceneGadget metaGadget;
     @Nullable @Getter
     private ConfigEntityGadget configGadget;
@@ -218,7 +218,7 @@ public class EntityGadget extends EntityBaseGadget implements ConfigAbilityDataA
 
         SceneGroupInstance groupInstance = getScene().getScriptManager().getCachedGroupInstanceById(this.getGroupId());
         if(groupInstance != null && metaGadget != null)
-            groupInstance.getDeadEntities().add(metaGadget.getConfigId());
+            groupInstance.addDeadEntity(metaGadget.getConfigId());
 
         val hostBlossom = getScene().getWorld().getHost().getBlossomManager();
         val removedChest = hostBlossom.getSpawnedChest().remove(getConfigId());
@@ -20,7 +20,6 @@ import emu.grasscutter.server.event.entity.EntityDamageEvent;
 import emu.grasscutter.utils.Position;
 import emu.grasscutter.utils.ProtoHelper;
 import it.unimi.dsi.fastutil.ints.Int2FloatMap;
-import it.unimi.dsi.fastutil.ints.Int2FloatOpenHashMap;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.val;
@@ -41,7 +40,7 @@ import static org.anime_game_servers.gi_lua.models.constants.EventType.EVENT_SPE
 
 public class EntityMonster extends GameEntity implements StringAbilityEntity {
     @Getter(onMethod = @__(@Override))
-    private final Int2FloatOpenHashMap fightProperties;
+    private final FightPropertyMap fightProperties;
 
     @Getter(onMethod = @__(@Override))
     private final Position position;
@@ -63,7 +62,7 @@ public class EntityMonster extends GameEntity implements StringAbilityEntity {
         super(scene);
         this.id = getWorld().getNextEntityId(EntityIdType.MONSTER);
         this.monsterData = monsterData;
-        this.fightProperties = new Int2FloatOpenHashMap();
+        this.fightProperties = new FightPropertyMap();
         this.position = new Position(pos);
         this.rotation = new Position();
         this.bornPos = getPosition().clone();
@@ -275,7 +274,7 @@ public class EntityMonster extends GameEntity implements StringAbilityEntity {
 
         SceneGroupInstance groupInstance = scene.getScriptManager().getGroupInstanceById(this.getGroupId());
         if(groupInstance != null && metaMonster != null)
-            groupInstance.getDeadEntities().add(metaMonster.getConfigId());
+            groupInstance.addDeadEntity(metaMonster.getConfigId());
 
         scene.triggerDungeonEvent(DungeonPassConditionType.DUNGEON_COND_KILL_GROUP_MONSTER, this.getGroupId());
         scene.triggerDungeonEvent(DungeonPassConditionType.DUNGEON_COND_KILL_TYPE_MONSTER, this.getMonsterData().getType().getValue());
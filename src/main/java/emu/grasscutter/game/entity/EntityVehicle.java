@@ -11,7 +11,7 @@ import emu.grasscutter.game.world.Scene;
 import emu.grasscutter.utils.Position;
 import emu.grasscutter.utils.ProtoHelper;
 import it.unimi.dsi.fastutil.ints.Int2FloatMap;
-import it.unimi.dsi.fastutil.ints.Int2FloatOpenHashMap;
+import emu.grasscutter.game.props.FightPropertyMap;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.val;
@@ -42,7 +42,7 @@ public class EntityVehicle extends EntityBaseGadget {
         super(scene, pos, rot);
         this.owner = player;
         this.id = getScene().getWorld().getNextEntityId(EntityIdType.GADGET);
-        this.fightProperties = new Int2FloatOpenHashMap();
+        this.fightProperties = new FightPropertyMap();
         this.gadgetId = gadgetId;
         this.pointId = pointId;
         this.curStamina = 240; // might be in configGadget.GCALKECLLLP.JBAKBEFIMBN.ANBMPHPOALP
@@ -14,7 +14,7 @@ import emu.grasscutter.game.world.Scene;
 import emu.grasscutter.scripts.EntityControllerScriptManager;
 import emu.grasscutter.utils.Position;
 import it.unimi.dsi.fastutil.ints.Int2FloatMap;
-import it.unimi.dsi.fastutil.ints.Int2FloatOpenHashMap;
+import emu.grasscutter.game.props.FightPropertyMap;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
@@ -31,7 +31,7 @@ public class EntityWeapon extends EntityBaseGadget implements ConfigAbilityDataA
     private ConfigEntityGadget configGadget;
 
     @Getter(onMethod = @__(@Override), lazy = true)
-    private final Int2FloatMap fightProperties = new Int2FloatOpenHashMap();
+    private final Int2FloatMap fightProperties = new FightPropertyMap();
 
     @Getter private final Position bornPos;
     @Getter private final Position bornRot;
@@ -19,6 +19,7 @@ import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.val;
+import org.anime_game_servers.multi_proto.gi.messages.general.Vector;
 import org.anime_game_servers.multi_proto.gi.messages.gadget.GadgetInteractReq;
 import org.anime_game_servers.multi_proto.gi.messages.scene.entity.FightPropPair;
 import org.anime_game_servers.multi_proto.gi.messages.scene.entity.MotionInfo;
@@ -34,8 +35,8 @@ public abstract class GameEntity {
     @Getter @Setter private SpawnDataEntry spawnEntry;
 
     @Getter @Setter private int blockId;
-    @Getter @Setter private int configId;
-    @Getter @Setter private int groupId;
+    @Getter private int configId;
+    @Getter private int groupId;
 
     @Getter @Setter private MotionState motionState;
     @Getter @Setter private int lastMoveSceneTimeMs;
@@ -56,6 +57,22 @@ public abstract class GameEntity {
         this.motionState = MotionState.MOTION_NONE;
     }
 
+    public void setConfigId(int configId) {
+        int oldConfigId = this.configId;
+        this.configId = configId;
+        if (oldConfigId != configId && this.scene != null) {
+            this.scene.onEntityIdsChanged(this, this.groupId, oldConfigId);
+        }
+    }
+
+    public void setGroupId(int groupId) {
+        int oldGroupId = this.groupId;
+        this.groupId = groupId;
+        if (oldGroupId != groupId && this.scene != null) {
+            this.scene.onEntityIdsChanged(this, oldGroupId, this.configId);
+        }
+    }
+
     public EntityType getEntityType() {
         return EntityIdType.fromEntityId(this.getId()).getType();
     }
@@ -113,9 +130,44 @@ public abstract class GameEntity {
     }
 
     public void addAllFightPropsToEntityInfo(SceneEntityInfo entityInfo) {
-        this.getFightPropertiesOpt().ifPresent(map -> entityInfo.setFightPropList(map.int2FloatEntrySet().stream()
-            .filter(entry -> entry.getIntKey() != 0)
-            .map(entry -> new FightPropPair(entry.getIntKey(), entry.getFloatValue())).toList()));
+        val props = this.getFightProperties();
+        if (props instanceof FightPropertyMap propMap) {
+            List<FightPropPair> pairs = new ArrayList<>(propMap.size());
+            propMap.forEachProp((id, value) -> {
+                if (id != 0) pairs.add(new FightPropPair(id, value));
+            });
+            entityInfo.setFightPropList(pairs);
+        } else if (props != null) {
+            entityInfo.setFightPropList(props.int2FloatEntrySet().stream()
+                .filter(entry -> entry.getIntKey() != 0)
+                .map(entry -> new FightPropPair(entry.getIntKey(), entry.getFloatValue())).toList());
+        }
+    }
+
+    /**
+     * Sends the fight properties that changed since the last sync to the scene, in one packet.
+     * Entities without a {@link FightPropertyMap} send their current hp instead.
+     */
+    public void syncFightProperties() {
+        val props = this.getFightProperties();
+        if (props instanceof FightPropertyMap propMap) {
+            if (!propMap.hasDirty()) return;
+
+            Map<Integer, Float> changed = new HashMap<>();
+            propMap.forEachDirty(changed::put);
+            this.getScene().broadcastPacket(new PacketEntityFightPropUpdateNotify(this, changed));
+        } else if (props != null) {
+            this.getScene().broadcastPacket(new PacketEntityFightPropUpdateNotify(this, FightProperty.FIGHT_PROP_CUR_HP));
+        }
+    }
+
+    /**
+     * Marks the fight properties as synced, after the client received all of them, e.g. with the entity info.
+     */
+    public void clearDirtyFightProperties() {
+        if (this.getFightProperties() instanceof FightPropertyMap propMap) {
+            propMap.clearDirty();
+        }
     }
 
     protected MotionInfo getMotionInfo() {
@@ -142,7 +194,7 @@ public abstract class GameEntity {
         float healed = Math.min(maxHp - curHp, amount);
         this.addFightProperty(FightProperty.FIGHT_PROP_CUR_HP, healed);
 
-        this.getScene().broadcastPacket(new PacketEntityFightPropUpdateNotify(this, FightProperty.FIGHT_PROP_CUR_HP));
+        this.getScene().queueFightPropSync(this);
 
         return healed;
     }
@@ -185,12 +237,12 @@ public abstract class GameEntity {
         callLuaHPEvent(event);
         callAbilityBeHurt(event);
 
-        // Packets
-        this.getScene().broadcastPacket(new PacketEntityFightPropUpdateNotify(this, FightProperty.FIGHT_PROP_CUR_HP));
-
-        // Check if dead.
+        // Packets, the hp has to arrive before the entity dies
         if (isDead) {
+            this.syncFightProperties();
             this.getScene().killEntity(this, killerId);
+        } else {
+            this.getScene().queueFightPropSync(this);
         }
     }
 
@@ -214,6 +266,21 @@ public abstract class GameEntity {
         // Set the position and rotation.
         this.getPosition().set(position);
         this.getRotation().set(rotation);
+        this.getScene().onEntityMoved(this);
+    }
+
+    /**
+     * Move this entity to the position a client sent, without allocating new positions.
+     *
+     * @param position The new position.
+     * @param rotation The new rotation, or null to keep the current one.
+     */
+    public void move(Vector position, @Nullable Vector rotation) {
+        this.getPosition().set(position);
+        if (rotation != null) {
+            this.getRotation().set(rotation);
+        }
+        this.getScene().onEntityMoved(this);
     }
 
     /**
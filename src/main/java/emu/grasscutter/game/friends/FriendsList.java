@@ -199,7 +199,14 @@ public class FriendsList extends BasePlayerManager {
         }
 
         // Get friendships from the db
-        List<Friendship> friendships = DatabaseHelper.getFriends(player);
+        this.loadFromDatabase(DatabaseHelper.getFriends(player));
+    }
+
+    public synchronized void loadFromDatabase(List<Friendship> friendships) {
+        if (this.hasLoaded()) {
+            return;
+        }
+
         friendships.forEach(this::loadFriendFromDatabase);
 
         // Set loaded flag
@@ -5,16 +5,23 @@ import java.util.Date;
 import org.bson.types.ObjectId;
 
 import dev.morphia.annotations.*;
+import dev.morphia.utils.IndexType;
 
 @Entity(value = "gachas", useDiscriminator = false)
+@Indexes(@Index(fields = {
+    @Field("ownerId"),
+    @Field("gachaType"),
+    @Field(value = "transactionDate", type = IndexType.DESC),
+    @Field(value = "_id", type = IndexType.DESC)
+}))
 public class GachaRecord {
     @Id private ObjectId id;
     
-    @Indexed private int ownerId;
+    private int ownerId;
 
     private Date transactionDate; 
     private int itemID;
-    @Indexed private int gachaType;
+    private int gachaType;
 
     public GachaRecord() {}
 
@@ -69,7 +76,7 @@ public class GachaRecord {
         return toJsonString();
     }
     public String toJsonString() {
-        return "{\"time\": " + this.transactionDate.getTime() + ",\"item\":" + this.itemID + "}";
+        return "{\"time\": " + this.transactionDate.getTime() + ",\"item\":" + this.itemID + ",\"id\":\"" + this.id + "\"}";
     }
     
 }
@@ -1,6 +1,5 @@
 package emu.grasscutter.game.gacha;
 
-import com.sun.nio.file.SensitivityWatchEventModifier;
 import emu.grasscutter.Grasscutter;
 import emu.grasscutter.data.DataLoader;
 import emu.grasscutter.data.GameData;
@@ -16,11 +15,10 @@ import emu.grasscutter.game.props.WatcherTriggerType;
 import emu.grasscutter.game.systems.InventorySystem;
 import emu.grasscutter.server.game.BaseGameSystem;
 import emu.grasscutter.server.game.GameServer;
-import emu.grasscutter.server.game.GameServerTickEvent;
 import emu.grasscutter.server.packet.send.PacketDoGachaRsp;
-import emu.grasscutter.utils.FileUtils;
 import emu.grasscutter.utils.Utils;
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMaps;
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.ints.IntList;
@@ -30,27 +28,21 @@ import org.anime_game_servers.multi_proto.gi.messages.general.item.ItemParam;
 import org.anime_game_servers.multi_proto.gi.messages.wishing.GachaItem;
 import org.anime_game_servers.multi_proto.gi.messages.wishing.GachaTransferItem;
 import org.anime_game_servers.multi_proto.gi.messages.wishing.GetGachaInfoRsp;
-import org.greenrobot.eventbus.Subscribe;
 
-import java.nio.file.*;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ThreadLocalRandom;
 
-import static emu.grasscutter.config.Configuration.GAME_OPTIONS;
-
 public class GachaSystem extends BaseGameSystem {
-    private final Int2ObjectMap<GachaBanner> gachaBanners;
-    private WatchService watchService;
+    // Replaced as a whole on reload, so wishes in progress keep using the banners they started with
+    private volatile Int2ObjectMap<GachaBanner> gachaBanners = Int2ObjectMaps.emptyMap();
 
     private static final int starglitterId = 221;
     private static final int stardustId = 222;
 
     public GachaSystem(GameServer server) {
         super(server);
-        this.gachaBanners = new Int2ObjectOpenHashMap<>();
         this.load();
-        this.startWatcher(server);
     }
 
     public Int2ObjectMap<GachaBanner> getGachaBanners() {
@@ -66,7 +58,7 @@ public class GachaSystem extends BaseGameSystem {
     }
 
     public synchronized void load() {
-        getGachaBanners().clear();
+        Int2ObjectMap<GachaBanner> gachaBanners = new Int2ObjectOpenHashMap<>();
         int autoScheduleId = 1000;
         int autoSortId = 9000;
         try {
@@ -83,7 +75,7 @@ public class GachaSystem extends BaseGameSystem {
                             banner.scheduleId = autoScheduleId++;
                         if (banner.sortId < 0)
                             banner.sortId = autoSortId--;
-                        getGachaBanners().put(banner.scheduleId, banner);
+                        gachaBanners.put(banner.scheduleId, banner);
                     }
                 }
                 Grasscutter.getLogger().debug("Banners successfully loaded.");
@@ -93,7 +85,9 @@ public class GachaSystem extends BaseGameSystem {
         } catch (Exception e) {
             // TODO Auto-generated catch block
             e.printStackTrace();
+            return;  // Keep the banners that were loaded before
         }
+        this.gachaBanners = Int2ObjectMaps.unmodifiable(gachaBanners);
     }
 
     private class BannerPools {
@@ -130,7 +124,7 @@ public class GachaSystem extends BaseGameSystem {
         }
     }
 
-    private synchronized int[] removeC6FromPool(int[] itemPool, Player player) {
+    private int[] removeC6FromPool(int[] itemPool, Player player) {
         IntList temp = new IntArrayList();
         for (int itemId : itemPool) {
             if (InventorySystem.checkPlayerAvatarConstellationLevel(player, itemId) < 6) {
@@ -140,7 +134,7 @@ public class GachaSystem extends BaseGameSystem {
         return temp.toIntArray();
     }
 
-    private synchronized int drawRoulette(int[] weights, int cutoff) {
+    private int drawRoulette(int[] weights, int cutoff) {
         // This follows the logic laid out in issue #183
         // Simple weighted selection with an upper bound for the roll that cuts off trailing entries
         // All weights must be >= 0
@@ -163,7 +157,7 @@ public class GachaSystem extends BaseGameSystem {
         return 0;  // This should only be reachable if total==0
     }
 
-    private synchronized int doFallbackRarePull(int[] fallback1, int[] fallback2, int rarity, GachaBanner banner, PlayerGachaBannerInfo gachaInfo) {
+    private int doFallbackRarePull(int[] fallback1, int[] fallback2, int rarity, GachaBanner banner, PlayerGachaBannerInfo gachaInfo) {
         if (fallback1.length < 1) {
             if (fallback2.length < 1) {
                 return getRandom((rarity==5)? GachaBanner.DEFAULT_FALLBACK_ITEMS_5_POOL_2 : GachaBanner.DEFAULT_FALLBACK_ITEMS_4_POOL_2);
@@ -190,7 +184,7 @@ public class GachaSystem extends BaseGameSystem {
         }
     }
 
-    private synchronized int doRarePull(int[] featured, int[] fallback1, int[] fallback2, int rarity, GachaBanner banner, PlayerGachaBannerInfo gachaInfo) {
+    private int doRarePull(int[] featured, int[] fallback1, int[] fallback2, int rarity, GachaBanner banner, PlayerGachaBannerInfo gachaInfo) {
         int itemId = 0;
         boolean epitomized = (banner.hasEpitomized()) && (rarity == 5) && (gachaInfo.getWishItemId() != 0);
         boolean pityEpitomized = (gachaInfo.getFailedChosenItemPulls() >= banner.getWishMaxProgress());  // Maximum fate points reached
@@ -221,7 +215,7 @@ public class GachaSystem extends BaseGameSystem {
         return itemId;
     }
 
-    private synchronized int doPull(GachaBanner banner, PlayerGachaBannerInfo gachaInfo, BannerPools pools) {
+    private int doPull(GachaBanner banner, PlayerGachaBannerInfo gachaInfo, BannerPools pools) {
         // Pre-increment all pity pools (yes this makes all calculations assume 1-indexed pity)
         gachaInfo.incPityAll();
 
@@ -240,7 +234,7 @@ public class GachaSystem extends BaseGameSystem {
         };
     }
 
-    public synchronized void doPulls(Player player, int scheduleId, int times) {
+    public void doPulls(Player player, int scheduleId, int times) {
         // Sanity check
         if (times != 10 && times != 1) {
             player.sendPacket(new PacketDoGachaRsp(Retcode.RET_GACHA_INVALID_TIMES));
@@ -289,6 +283,11 @@ public class GachaSystem extends BaseGameSystem {
             pools.fallbackItems5Pool2 = removeC6FromPool(pools.fallbackItems5Pool2, player);
         }
 
+        // Make sure the record count does not include the records of this wish twice
+        int gachaType = banner.getGachaType();
+        player.getGachaInfo().getRecordCount(player.getUid(), gachaType);
+        List<GachaRecord> records = new ArrayList<>(times);
+
         for (int i = 0; i < times; i++) {
             // Roll
             int itemId = doPull(banner, gachaInfo, pools);
@@ -298,8 +297,7 @@ public class GachaSystem extends BaseGameSystem {
             }
 
             // Write gacha record
-            GachaRecord gachaRecord = new GachaRecord(itemId, player.getUid(), banner.getGachaType());
-            DatabaseHelper.saveGachaRecord(gachaRecord);
+            records.add(new GachaRecord(itemId, player.getUid(), gachaType));
 
             // Create gacha item
             val gachaItem = new GachaItem();
@@ -375,6 +373,8 @@ public class GachaSystem extends BaseGameSystem {
 
             list.add(gachaItem);
         }
+        player.getGachaInfo().addRecords(player.getUid(), gachaType, records.size());
+        DatabaseHelper.saveGachaRecords(records, player.getUid());
 
         // Add stardust/starglitter
         if (stardust > 0) {
@@ -391,46 +391,7 @@ public class GachaSystem extends BaseGameSystem {
         player.getBattlePassManager().triggerMission(WatcherTriggerType.TRIGGER_GACHA_NUM, 0, times);
     }
 
-    private synchronized void startWatcher(GameServer server) {
-        if (this.watchService == null) {
-            try {
-                this.watchService = FileSystems.getDefault().newWatchService();
-                FileUtils.getDataUserPath("").register(watchService, new WatchEvent.Kind[]{StandardWatchEventKinds.ENTRY_MODIFY}, SensitivityWatchEventModifier.HIGH);
-            } catch (Exception e) {
-                Grasscutter.getLogger().error("Unable to load the Gacha Manager Watch Service. If ServerOptions.watchGacha is true it will not auto-reload");
-                e.printStackTrace();
-            }
-        } else {
-            Grasscutter.getLogger().error("Cannot reinitialise watcher ");
-        }
-    }
-
-    @Subscribe
-    public synchronized void watchBannerJson(GameServerTickEvent tickEvent) {
-        if (GAME_OPTIONS.watchGachaConfig) {
-            try {
-                WatchKey watchKey = watchService.take();
-
-                for (WatchEvent<?> event : watchKey.pollEvents()) {
-                    final Path changed = (Path) event.context();
-                    if (changed.endsWith("Banners.json")) {
-                        Grasscutter.getLogger().info("Change detected with banners.json. Reloading gacha config");
-                        this.load();
-                    }
-                }
-
-                boolean valid = watchKey.reset();
-                if (!valid) {
-                    Grasscutter.getLogger().error("Unable to reset Gacha Manager Watch Key. Auto-reload of banners.json will no longer work.");
-                    return;
-                }
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-        }
-    }
-
-    private synchronized GetGachaInfoRsp createProto(Player player) {
+    private GetGachaInfoRsp createProto(Player player) {
         val proto = new GetGachaInfoRsp();
         proto.setGachaRandom(12345);
 
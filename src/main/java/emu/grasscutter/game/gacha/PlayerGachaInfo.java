@@ -1,6 +1,10 @@
 package emu.grasscutter.game.gacha;
 
 import dev.morphia.annotations.Entity;
+import emu.grasscutter.database.DatabaseHelper;
+
+import java.util.HashMap;
+import java.util.Map;
 
 @Entity
 public class PlayerGachaInfo {
@@ -8,6 +12,8 @@ public class PlayerGachaInfo {
     private PlayerGachaBannerInfo beginnerBanner;
     private PlayerGachaBannerInfo eventCharacterBanner;
     private PlayerGachaBannerInfo eventWeaponBanner;
+    // Gacha type -> amount of gacha records, counted from the database once for older players
+    private Map<Integer, Integer> recordCounts;
 
     public PlayerGachaInfo() {
         this.standardBanner = new PlayerGachaBannerInfo();
@@ -43,4 +49,21 @@ public class PlayerGachaInfo {
             case WEAPON -> this.getEventWeaponBanner();
         };
     }
+
+    /**
+     * @return The amount of gacha records the player has for the gacha type.
+     */
+    public synchronized int getRecordCount(int ownerUid, int gachaType) {
+        if (this.recordCounts == null) this.recordCounts = new HashMap<>();
+        return this.recordCounts.computeIfAbsent(gachaType, type -> (int) DatabaseHelper.countGachaRecords(ownerUid, type));
+    }
+
+    /**
+     * Counts new gacha records of the player.
+     * The count has to be known before the records are saved, see {@link #getRecordCount}.
+     */
+    public synchronized void addRecords(int ownerUid, int gachaType, int amount) {
+        int count = this.getRecordCount(ownerUid, gachaType);
+        this.recordCounts.put(gachaType, count + amount);
+    }
 }
@@ -28,7 +28,7 @@ import java.util.stream.Collectors;
 @Entity(value = "items", useDiscriminator = false)
 public class GameItem {
     @Id private ObjectId id;
-    @Indexed protected int ownerId;
+    @Indexed @Getter protected int ownerId;
     @Getter @Setter protected int itemId;
     @Getter @Setter protected int count;
 
@@ -219,7 +219,8 @@ public class GameItem {
     public void save() {
         if (this.count > 0 && this.ownerId > 0) {
             DatabaseHelper.saveItem(this);
-        } else if (this.id != null) {
+        } else {
+            // Also drops a queued save if the item was never written
             DatabaseHelper.deleteItem(this);
         }
     }
@@ -518,8 +518,10 @@ public class Inventory extends BasePlayerManager implements Iterable<GameItem> {
     }
 
     public void loadFromDatabase() {
-        List<GameItem> items = DatabaseHelper.getInventoryItems(getPlayer());
+        this.loadFromDatabase(DatabaseHelper.getInventoryItems(getPlayer()));
+    }
 
+    public void loadFromDatabase(List<GameItem> items) {
         for (GameItem item : items) {
             // Should never happen
             if (item.getObjectId() == null) {
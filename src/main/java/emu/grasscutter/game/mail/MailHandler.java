@@ -92,8 +92,10 @@ public class MailHandler extends BasePlayerManager {
     }
 
     public void loadFromDatabase() {
-        List<Mail> mailList = DatabaseHelper.getAllMail(this.getPlayer());
+        this.loadFromDatabase(DatabaseHelper.getAllMail(this.getPlayer()));
+    }
 
+    public void loadFromDatabase(List<Mail> mailList) {
         for (Mail mail : mailList) {
             this.getMail().add(mail);
         }
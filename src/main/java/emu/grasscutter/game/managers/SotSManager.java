@@ -17,6 +17,7 @@ import org.anime_game_servers.multi_proto.gi.messages.general.PropChangeReason;
 import emu.grasscutter.server.packet.send.PacketEntityFightPropChangeReasonNotify;
 import emu.grasscutter.server.packet.send.PacketEntityFightPropUpdateNotify;
 import emu.grasscutter.server.packet.send.PacketSceneForceUnlockNotify;
+import emu.grasscutter.server.scheduler.GameTimerService.GameTimer;
 import lombok.val;
 import emu.grasscutter.server.packet.send.PacketLevelupCityRsp;
 
@@ -24,8 +25,7 @@ import org.slf4j.Logger;
 
 import java.util.HashMap;
 import java.util.List;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.TimeUnit;
 
 // Statue of the Seven Manager
 public class SotSManager extends BasePlayerManager {
@@ -33,7 +33,7 @@ public class SotSManager extends BasePlayerManager {
     // NOTE: Spring volume balance *1  = fight prop HP *100
 
     private final Logger logger = Grasscutter.getLogger();
-    private Timer autoRecoverTimer;
+    private GameTimer autoRecoverTimer;
     private final boolean enablePriorityHealing = false;
 
     public final static int GlobalMaximumSpringVolume = PlayerProperty.PROP_MAX_SPRING_VOLUME.getMax();
@@ -92,8 +92,8 @@ public class SotSManager extends BasePlayerManager {
         logger.trace("Player entered statue region");
         autoRevive();
         if (autoRecoverTimer == null) {
-            autoRecoverTimer = new Timer();
-            autoRecoverTimer.schedule(new AutoRecoverTimerTick(), 2500, 15000);
+            autoRecoverTimer = player.getServer().getTimerService().scheduleAtFixedRate(
+                player.getSession()::execute, new AutoRecoverTimerTick(), 2500, 15000, TimeUnit.MILLISECONDS);
         }
     }
 
@@ -118,7 +118,7 @@ public class SotSManager extends BasePlayerManager {
         });
     }
 
-    private class AutoRecoverTimerTick extends TimerTask {
+    private class AutoRecoverTimerTick implements Runnable {
         // autoRecover checks player setting to see if auto recover is enabled, and refill HP to the predefined level.
         public void run() {
             refillSpringVolume();
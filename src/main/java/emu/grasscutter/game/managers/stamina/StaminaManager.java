@@ -11,8 +11,8 @@ import emu.grasscutter.game.props.LifeState;
 import emu.grasscutter.game.props.PlayerProperty;
 import emu.grasscutter.game.props.WeaponType;
 import emu.grasscutter.server.game.GameSession;
+import emu.grasscutter.server.scheduler.GameTimerService.GameTimer;
 import emu.grasscutter.server.packet.send.PacketAvatarLifeStateChangeNotify;
-import emu.grasscutter.server.packet.send.PacketEntityFightPropUpdateNotify;
 import emu.grasscutter.server.packet.send.PacketLifeStateChangeNotify;
 import emu.grasscutter.server.packet.send.PacketVehicleStaminaNotify;
 import emu.grasscutter.utils.Position;
@@ -25,6 +25,7 @@ import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 import static emu.grasscutter.config.Configuration.GAME_OPTIONS;
 
@@ -118,7 +119,7 @@ public class StaminaManager extends BasePlayerManager {
     private Position previousCoordinates = new Position(0, 0, 0);
     private MotionState currentState = MotionState.MOTION_STANDBY;
     private MotionState previousState = MotionState.MOTION_STANDBY;
-    private Timer sustainedStaminaHandlerTimer;
+    private GameTimer sustainedStaminaHandlerTimer;
     private GameSession cachedSession = null;
     private GameEntity cachedEntity = null;
     private int staminaRecoverDelay = 0;
@@ -318,7 +319,8 @@ public class StaminaManager extends BasePlayerManager {
                 LifeState.LIFE_DEAD, dieType));
         session.send(new PacketLifeStateChangeNotify(entity, LifeState.LIFE_DEAD, dieType));
         entity.setFightProperty(FightProperty.FIGHT_PROP_CUR_HP, 0);
-        entity.getWorld().broadcastPacket(new PacketEntityFightPropUpdateNotify(entity, FightProperty.FIGHT_PROP_CUR_HP));
+        // Synced right away, the entity is removed below
+        entity.syncFightProperties();
         entity.getWorld().broadcastPacket(new PacketLifeStateChangeNotify(0, entity, LifeState.LIFE_DEAD));
         player.getScene().removeEntity(entity);
         ((EntityAvatar) entity).onDeath(dieType, 0);
@@ -326,8 +328,8 @@ public class StaminaManager extends BasePlayerManager {
 
     public void startSustainedStaminaHandler() {
         if (!player.isPaused() && sustainedStaminaHandlerTimer == null) {
-            sustainedStaminaHandlerTimer = new Timer();
-            sustainedStaminaHandlerTimer.scheduleAtFixedRate(new SustainedStaminaHandler(), 0, 200);
+            sustainedStaminaHandlerTimer = player.getServer().getTimerService().scheduleAtFixedRate(
+                player.getSession()::execute, new SustainedStaminaHandler(), 0, 200, TimeUnit.MILLISECONDS);
             logger.debug("[MovementManager] SustainedStaminaHandlerTimer started");
         }
     }
@@ -393,11 +395,8 @@ public class StaminaManager extends BasePlayerManager {
         this.currentState = motionState;
         // logger.trace(currentState + "\t" + (notifyEntityId == currentAvatarEntityId ? "character" : "vehicle"));
         val posVector = motionInfo.getPos();
-        if (posVector != null){
-            Position newPos = new Position(posVector);
-            if (newPos.getX() != 0 && newPos.getY() != 0 && newPos.getZ() != 0) {
-                currentCoordinates = newPos;
-            }
+        if (posVector != null && posVector.getX() != 0 && posVector.getY() != 0 && posVector.getZ() != 0) {
+            currentCoordinates.set(posVector);
         }
         startSustainedStaminaHandler();
         handleImmediateStamina(session, motionState);
@@ -446,7 +445,7 @@ public class StaminaManager extends BasePlayerManager {
         updateStaminaRelative(session, consumption, true);
     }
 
-    private class SustainedStaminaHandler extends TimerTask {
+    private class SustainedStaminaHandler implements Runnable {
         public void run() {
             boolean moving = isPlayerMoving();
             int currentCharacterStamina = getCurrentCharacterStamina();
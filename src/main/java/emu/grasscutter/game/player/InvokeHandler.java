@@ -1,22 +1,53 @@
 package emu.grasscutter.game.player;
 
+import java.lang.reflect.Constructor;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Function;
 
+import emu.grasscutter.Grasscutter;
 import emu.grasscutter.net.packet.BasePacket;
 import org.anime_game_servers.multi_proto.gi.messages.battle.ForwardType;
 
+/**
+ * Collects the invocations a client sends and forwards them in one packet per target on update.
+ * The collected entries are handed to the packet as is, only the server relevant ones are decoded by the handlers.
+ */
 public class InvokeHandler<T> {
-	private final List<T> entryListForwardAll;
-	private final List<T> entryListForwardAllExceptCur;
-	private final List<T> entryListForwardHost;
-	private final Class<? extends BasePacket> packetClass;
+	private List<T> entryListForwardAll;
+	private List<T> entryListForwardAllExceptCur;
+	private List<T> entryListForwardHost;
+	private final Function<List<T>, ? extends BasePacket> packetFactory;
 
-	public InvokeHandler(Class<? extends BasePacket> packetClass) {
+	public InvokeHandler(Function<List<T>, ? extends BasePacket> packetFactory) {
 		this.entryListForwardAll = new ArrayList<>();
 		this.entryListForwardAllExceptCur = new ArrayList<>();
 		this.entryListForwardHost = new ArrayList<>();
-		this.packetClass = packetClass;
+		this.packetFactory = packetFactory;
+	}
+
+	/**
+	 * @deprecated Use {@link #InvokeHandler(Function)}, which does not create the packets through reflection.
+	 */
+	@Deprecated
+	public InvokeHandler(Class<? extends BasePacket> packetClass) {
+		this(reflectiveFactory(packetClass));
+	}
+
+	private static <T> Function<List<T>, BasePacket> reflectiveFactory(Class<? extends BasePacket> packetClass) {
+		try {
+			// Look the constructor up once instead of on every update
+			Constructor<? extends BasePacket> constructor = packetClass.getDeclaredConstructor(List.class);
+			return entries -> {
+				try {
+					return constructor.newInstance(entries);
+				} catch (ReflectiveOperationException e) {
+					throw new IllegalStateException(e);
+				}
+			};
+		} catch (NoSuchMethodException e) {
+			throw new IllegalArgumentException(packetClass.getName() + " has no List constructor", e);
+		}
 	}
 
 	public synchronized void addEntry(ForwardType forward, T entry) {
@@ -38,23 +69,24 @@ public class InvokeHandler<T> {
 		}
 
 		try {
-			if (entryListForwardAll.size() > 0) {
-				BasePacket packet = packetClass.getDeclaredConstructor(List.class).newInstance(this.entryListForwardAll);
+			// The packets keep the lists, so they are replaced instead of cleared
+			if (!entryListForwardAll.isEmpty()) {
+				BasePacket packet = this.packetFactory.apply(this.entryListForwardAll);
+				this.entryListForwardAll = new ArrayList<>();
 				player.getScene().broadcastPacket(packet);
-				this.entryListForwardAll.clear();
 			}
-			if (entryListForwardAllExceptCur.size() > 0) {
-				BasePacket packet = packetClass.getDeclaredConstructor(List.class).newInstance(this.entryListForwardAllExceptCur);
+			if (!entryListForwardAllExceptCur.isEmpty()) {
+				BasePacket packet = this.packetFactory.apply(this.entryListForwardAllExceptCur);
+				this.entryListForwardAllExceptCur = new ArrayList<>();
 				player.getScene().broadcastPacketToOthers(player, packet);
-				this.entryListForwardAllExceptCur.clear();
 			}
-			if (entryListForwardHost.size() > 0) {
-				BasePacket packet = packetClass.getDeclaredConstructor(List.class).newInstance(this.entryListForwardHost);
+			if (!entryListForwardHost.isEmpty()) {
+				BasePacket packet = this.packetFactory.apply(this.entryListForwardHost);
+				this.entryListForwardHost = new ArrayList<>();
 				player.getWorld().getHost().sendPacket(packet);
-				this.entryListForwardHost.clear();
 			}
 		} catch (Exception e) {
-			e.printStackTrace();
+			Grasscutter.getLogger().error("Failed to forward invocations of player {}", player.getUid(), e);
 		}
 	}
 }
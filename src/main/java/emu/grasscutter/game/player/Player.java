@@ -11,6 +11,7 @@ import emu.grasscutter.data.excels.PlayerLevelData;
 import emu.grasscutter.data.excels.SceneTagData;
 import emu.grasscutter.data.excels.WeatherData;
 import emu.grasscutter.database.DatabaseHelper;
+import emu.grasscutter.database.DatabaseManager;
 import emu.grasscutter.game.Account;
 import emu.grasscutter.game.CoopRequest;
 import emu.grasscutter.game.ability.AbilityManager;
@@ -70,6 +71,7 @@ import emu.grasscutter.server.game.GameSession;
 import emu.grasscutter.server.game.GameSession.SessionState;
 import emu.grasscutter.server.packet.send.*;
 import emu.grasscutter.utils.DateHelper;
+import emu.grasscutter.utils.LatencyRecorder;
 import emu.grasscutter.utils.MessageHandler;
 import emu.grasscutter.utils.Position;
 import emu.grasscutter.utils.Utils;
@@ -95,11 +97,14 @@ import org.anime_game_servers.multi_proto.gi.messages.scene.entity.MpSettingType
 import org.anime_game_servers.multi_proto.gi.messages.scene.entity.OnlinePlayerInfo;
 import org.jetbrains.annotations.NotNull;
 
+import javax.annotation.Nullable;
+
 import java.time.DayOfWeek;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.LinkedBlockingQueue;
 
@@ -107,6 +112,11 @@ import static emu.grasscutter.config.Configuration.GAME_OPTIONS;
 
 @Entity(value = "players", useDiscriminator = false)
 public class Player {
+    // Durations of the login stages, kept to watch login latency
+    private static final LatencyRecorder loginDbTimes = new LatencyRecorder(1024);
+    private static final LatencyRecorder loginLoadTimes = new LatencyRecorder(1024);
+    private static final LatencyRecorder loginPacketTimes = new LatencyRecorder(1024);
+
     @Id private int id;
     @Getter
     @Indexed(options = @IndexOptions(unique = true)) private String accountId;
@@ -288,9 +298,9 @@ public class Player {
 
         this.attackResults = new LinkedBlockingQueue<>();
         this.coopRequests = new Int2ObjectOpenHashMap<>();
-        this.combatInvokeHandler = new InvokeHandler(PacketCombatInvocationsNotify.class);
-        this.abilityInvokeHandler = new InvokeHandler(PacketAbilityInvocationsNotify.class);
-        this.clientAbilityInitFinishHandler = new InvokeHandler(PacketClientAbilityInitFinishNotify.class);
+        this.combatInvokeHandler = new InvokeHandler<>(PacketCombatInvocationsNotify::new);
+        this.abilityInvokeHandler = new InvokeHandler<>(PacketAbilityInvocationsNotify::new);
+        this.clientAbilityInitFinishHandler = new InvokeHandler<>(PacketClientAbilityInitFinishNotify::new);
 
         this.birthday = new PlayerBirthday();
         this.rewardedLevels = new HashSet<>();
@@ -1182,7 +1192,12 @@ public class Player {
 
     public void loadBattlePassManager() {
         if (this.battlePassManager != null) return;
-        this.battlePassManager = DatabaseHelper.loadBattlePass(this);
+        this.loadBattlePassManager(DatabaseHelper.getBattlePassByUid(this.getUid()));
+    }
+
+    private void loadBattlePassManager(@Nullable BattlePassManager manager) {
+        if (this.battlePassManager != null) return;
+        this.battlePassManager = DatabaseHelper.loadBattlePass(this, manager);
         this.battlePassManager.getMissions().values().removeIf(mission -> mission.getData() == null);
     }
 
@@ -1316,6 +1331,21 @@ public class Player {
 
     // Called from tokenrsp
     public void loadFromDatabase() {
+        this.loadFromDatabase(this.fetchLoginData().join());
+    }
+
+    /**
+     * Queries everything the player needs on login concurrently, off the calling thread.
+     * Pass the result to {@link #loadFromDatabase(PlayerLoginData)} on the player's logic thread.
+     */
+    public CompletableFuture<PlayerLoginData> fetchLoginData() {
+        return PlayerLoginData.fetch(this);
+    }
+
+    public void loadFromDatabase(PlayerLoginData data) {
+        long start = System.nanoTime();
+        loginDbTimes.record(data.fetchNanos());
+
         // Make sure these exist
         if (this.getTeamManager() == null) {
             this.teamManager = new TeamManager(this);
@@ -1331,15 +1361,18 @@ public class Player {
         }
 
         // Load from db
-        this.getAvatars().loadFromDatabase();
-        this.getInventory().loadFromDatabase();
+        this.getAvatars().loadFromDatabase(data.avatars());
+        this.getInventory().loadFromDatabase(data.items());
 
-        this.getFriendsList().loadFromDatabase();
-        this.getMailHandler().loadFromDatabase();
-        this.getQuestManager().loadFromDatabase();
+        this.getFriendsList().loadFromDatabase(data.friends());
+        this.getMailHandler().loadFromDatabase(data.mail());
+        this.getQuestManager().loadFromDatabase(data.quests());
 
-        this.loadBattlePassManager();
+        this.loadBattlePassManager(data.battlePass());
         this.getAvatars().postLoad(); // Needs to be called after inventory is handled
+        this.home = data.home() != null ? data.home() : GameHome.create(getUid());
+
+        loginLoadTimes.record(System.nanoTime() - start);
     }
 
     public void onPlayerBorn() {
@@ -1347,6 +1380,8 @@ public class Player {
     }
 
     public void onLogin() {
+        long start = System.nanoTime();
+
         // Create world
         World world = new World(this);
         world.addPlayer(this);
@@ -1401,8 +1436,10 @@ public class Player {
         this.getBattlePassManager().triggerMission(WatcherTriggerType.TRIGGER_LOGIN);
 
         this.furnitureManager.onLogin();
-        // Home
-        home = GameHome.getByUid(getUid());
+        // Home, usually already loaded with the rest of the player
+        if (home == null) {
+            home = GameHome.getByUid(getUid());
+        }
         home.onOwnerLogin(this);
 
         session.send(new PacketPlayerEnterSceneNotify(this)); // Enter game world
@@ -1414,6 +1451,12 @@ public class Player {
         // Set session state
         session.setState(SessionState.ACTIVE);
 
+        loginPacketTimes.record(System.nanoTime() - start);
+        if (Grasscutter.getLogger().isDebugEnabled()) {
+            Grasscutter.getLogger().debug("Player {} logged in, p99 of recent logins: db {} ms, load {} ms, packets {} ms",
+                getUid(), loginDbTimes.getPercentileMillis(99), loginLoadTimes.getPercentileMillis(99), loginPacketTimes.getPercentileMillis(99));
+        }
+
         // Call join event.
         PlayerJoinEvent event = new PlayerJoinEvent(this); event.call();
         if (event.isCanceled()) { // If event is not cancelled, continue.
@@ -1452,6 +1495,8 @@ public class Player {
             this.save();
             this.getTeamManager().saveAvatars();
             this.getFriendsList().save();
+            // Written in the background, the next login of the player waits for it
+            DatabaseManager.getWriteQueue().flush(this.getUid());
 
             // Call quit event.
             PlayerQuitEvent event = new PlayerQuitEvent(this); event.call();
@@ -0,0 +1,56 @@
+package emu.grasscutter.game.player;
+
+import emu.grasscutter.database.DatabaseHelper;
+import emu.grasscutter.database.DatabaseManager;
+import emu.grasscutter.game.avatar.Avatar;
+import emu.grasscutter.game.battlepass.BattlePassManager;
+import emu.grasscutter.game.friends.Friendship;
+import emu.grasscutter.game.home.GameHome;
+import emu.grasscutter.game.inventory.GameItem;
+import emu.grasscutter.game.mail.Mail;
+import emu.grasscutter.game.quest.GameMainQuest;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Everything a player loads from the database when logging in.
+ * The queries are independent of each other, so they are all issued at once.
+ */
+public record PlayerLoginData(
+    List<Avatar> avatars,
+    List<GameItem> items,
+    List<Friendship> friends,
+    List<Mail> mail,
+    List<GameMainQuest> quests,
+    @Nullable BattlePassManager battlePass,
+    @Nullable GameHome home,
+    long fetchNanos
+) {
+    /**
+     * Queries the data of the player on the database read threads.
+     * Only reads the player's uid, so it does not matter which thread calls this.
+     */
+    public static CompletableFuture<PlayerLoginData> fetch(Player player) {
+        long start = System.nanoTime();
+        int uid = player.getUid();
+
+        var avatars = query(() -> DatabaseHelper.getAvatars(player));
+        var items = query(() -> DatabaseHelper.getInventoryItems(player));
+        var friends = query(() -> DatabaseHelper.getFriends(player));
+        var mail = query(() -> DatabaseHelper.getAllMail(player));
+        var quests = query(() -> DatabaseHelper.getAllQuests(player));
+        var battlePass = query(() -> DatabaseHelper.getBattlePassByUid(uid));
+        var home = query(() -> DatabaseHelper.getHomeByUid(uid));
+
+        return CompletableFuture.allOf(avatars, items, friends, mail, quests, battlePass, home)
+            .thenApply(v -> new PlayerLoginData(avatars.join(), items.join(), friends.join(), mail.join(),
+                quests.join(), battlePass.join(), home.join(), System.nanoTime() - start));
+    }
+
+    private static <T> CompletableFuture<T> query(Supplier<T> query) {
+        return CompletableFuture.supplyAsync(query, DatabaseManager.getReadExecutor());
+    }
+}
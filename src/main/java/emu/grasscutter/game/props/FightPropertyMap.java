@@ -0,0 +1,212 @@
+package emu.grasscutter.game.props;
+
+import it.unimi.dsi.fastutil.ints.AbstractInt2FloatMap;
+import it.unimi.dsi.fastutil.ints.Int2FloatMap;
+import it.unimi.dsi.fastutil.ints.Int2FloatMaps;
+import it.unimi.dsi.fastutil.ints.Int2FloatOpenHashMap;
+import it.unimi.dsi.fastutil.objects.AbstractObjectSet;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import it.unimi.dsi.fastutil.objects.ObjectSet;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.NoSuchElementException;
+
+/**
+ * The fight properties of an entity, stored in an array indexed by {@link FightProperty}.
+ * Every property that changes is marked dirty until the changes are taken with {@link #forEachDirty}.
+ * Ids without a {@link FightProperty} are kept in a small map on the side.
+ */
+public final class FightPropertyMap extends AbstractInt2FloatMap {
+    // Fight property id -> index in the arrays, -1 if the id has no FightProperty
+    private static final short[] INDEX_BY_ID;
+    private static final FightProperty[] PROPS = FightProperty.values();
+
+    static {
+        int maxId = Arrays.stream(PROPS).mapToInt(FightProperty::getId).max().orElse(0);
+        INDEX_BY_ID = new short[maxId + 1];
+        Arrays.fill(INDEX_BY_ID, (short) -1);
+        for (FightProperty prop : PROPS) {
+            INDEX_BY_ID[prop.getId()] = (short) prop.ordinal();
+        }
+    }
+
+    private final float[] values = new float[PROPS.length];
+    private final BitSet present = new BitSet(PROPS.length);
+    private final BitSet dirty = new BitSet(PROPS.length);
+    @Nullable private Int2FloatOpenHashMap unknown;
+
+    public FightPropertyMap() {}
+
+    public FightPropertyMap(Int2FloatMap props) {
+        this.putAll(props);
+    }
+
+    private static int indexOf(int id) {
+        return id >= 0 && id < INDEX_BY_ID.length ? INDEX_BY_ID[id] : -1;
+    }
+
+    @Override public float get(int id) {
+        int index = indexOf(id);
+        if (index < 0) {
+            return this.unknown != null ? this.unknown.getOrDefault(id, this.defRetValue) : this.defRetValue;
+        }
+        return this.present.get(index) ? this.values[index] : this.defRetValue;
+    }
+
+    @Override public float getOrDefault(int id, float defaultValue) {
+        int index = indexOf(id);
+        if (index < 0) {
+            return this.unknown != null ? this.unknown.getOrDefault(id, defaultValue) : defaultValue;
+        }
+        return this.present.get(index) ? this.values[index] : defaultValue;
+    }
+
+    @Override public boolean containsKey(int id) {
+        int index = indexOf(id);
+        if (index < 0) {
+            return this.unknown != null && this.unknown.containsKey(id);
+        }
+        return this.present.get(index);
+    }
+
+    @Override public float put(int id, float value) {
+        int index = indexOf(id);
+        if (index < 0) {
+            if (this.unknown == null) {
+                this.unknown = new Int2FloatOpenHashMap();
+                this.unknown.defaultReturnValue(this.defRetValue);
+            }
+            return this.unknown.put(id, value);
+        }
+
+        float old = this.present.get(index) ? this.values[index] : this.defRetValue;
+        if (!this.present.get(index) || Float.compare(old, value) != 0) {
+            this.dirty.set(index);
+        }
+        this.values[index] = value;
+        this.present.set(index);
+        return old;
+    }
+
+    @Override public float remove(int id) {
+        int index = indexOf(id);
+        if (index < 0) {
+            return this.unknown != null ? this.unknown.remove(id) : this.defRetValue;
+        }
+        if (!this.present.get(index)) return this.defRetValue;
+
+        this.present.clear(index);
+        this.dirty.clear(index);
+        return this.values[index];
+    }
+
+    @Override public void clear() {
+        this.present.clear();
+        this.dirty.clear();
+        if (this.unknown != null) {
+            this.unknown.clear();
+        }
+    }
+
+    @Override public int size() {
+        return this.present.cardinality() + (this.unknown != null ? this.unknown.size() : 0);
+    }
+
+    @Override public boolean isEmpty() {
+        return this.present.isEmpty() && (this.unknown == null || this.unknown.isEmpty());
+    }
+
+    /**
+     * Calls the consumer with every property, without creating entries.
+     */
+    public void forEachProp(PropConsumer consumer) {
+        for (int index = this.present.nextSetBit(0); index >= 0; index = this.present.nextSetBit(index + 1)) {
+            consumer.accept(PROPS[index].getId(), this.values[index]);
+        }
+        if (this.unknown != null) {
+            for (Int2FloatMap.Entry entry : Int2FloatMaps.fastIterable(this.unknown)) {
+                consumer.accept(entry.getIntKey(), entry.getFloatValue());
+            }
+        }
+    }
+
+    /**
+     * @return True if a property changed since the changes were last taken.
+     */
+    public boolean hasDirty() {
+        return !this.dirty.isEmpty();
+    }
+
+    /**
+     * Marks every property as not changed, e.g. after all of them were sent.
+     */
+    public void clearDirty() {
+        this.dirty.clear();
+    }
+
+    /**
+     * Calls the consumer with every property that changed since the last call, and marks them as not changed.
+     */
+    public void forEachDirty(PropConsumer consumer) {
+        for (int index = this.dirty.nextSetBit(0); index >= 0; index = this.dirty.nextSetBit(index + 1)) {
+            consumer.accept(PROPS[index].getId(), this.values[index]);
+        }
+        this.dirty.clear();
+    }
+
+    @Override public ObjectSet<Int2FloatMap.Entry> int2FloatEntrySet() {
+        return new AbstractObjectSet<>() {
+            @Override public ObjectIterator<Int2FloatMap.Entry> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override public int size() {
+                return FightPropertyMap.this.size();
+            }
+        };
+    }
+
+    private final class EntryIterator implements ObjectIterator<Int2FloatMap.Entry> {
+        private int next = present.nextSetBit(0);
+        private int last = -1;
+        @Nullable private final ObjectIterator<Int2FloatMap.Entry> unknownIterator =
+            unknown != null ? Int2FloatMaps.fastIterator(unknown) : null;
+        private boolean lastWasUnknown;
+
+        @Override public boolean hasNext() {
+            return this.next >= 0 || (this.unknownIterator != null && this.unknownIterator.hasNext());
+        }
+
+        @Override public Int2FloatMap.Entry next() {
+            if (this.next >= 0) {
+                this.last = this.next;
+                this.lastWasUnknown = false;
+                this.next = present.nextSetBit(this.next + 1);
+                return new BasicEntry(PROPS[this.last].getId(), values[this.last]);
+            }
+            if (this.unknownIterator == null) throw new NoSuchElementException();
+
+            Int2FloatMap.Entry entry = this.unknownIterator.next();
+            this.lastWasUnknown = true;
+            return new BasicEntry(entry.getIntKey(), entry.getFloatValue());
+        }
+
+        @Override public void remove() {
+            if (this.lastWasUnknown && this.unknownIterator != null) {
+                this.unknownIterator.remove();
+                return;
+            }
+            if (this.last < 0) throw new IllegalStateException();
+
+            present.clear(this.last);
+            dirty.clear(this.last);
+            this.last = -1;
+        }
+    }
+
+    public interface PropConsumer {
+        void accept(int id, float value);
+    }
+}
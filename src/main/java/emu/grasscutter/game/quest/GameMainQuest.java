@@ -370,52 +370,61 @@ public class GameMainQuest {
     }
 
     public void tryFailSubQuests(QuestContent condType, String paramStr, int... params) {
+        List<GameQuest> subQuestsWithCond = getChildQuests().values().stream()
+            .filter(p -> p.getState() == QuestState.QUEST_STATE_UNFINISHED)
+            .toList();
+        subQuestsWithCond.forEach(quest -> tryFailSubQuest(quest, condType, paramStr, params));
+    }
+
+    public void tryFinishSubQuests(QuestContent condType, String paramStr, int... params) {
+        List<GameQuest> subQuestsWithCond = getChildQuests().values().stream()
+            .filter(p -> p.getState() == QuestState.QUEST_STATE_UNFINISHED)
+            .toList();
+        subQuestsWithCond.forEach(quest -> tryFinishSubQuest(quest, condType, paramStr, params));
+    }
+
+    public void tryFailSubQuest(GameQuest subQuest, QuestContent condType, String paramStr, int... params) {
         try {
-            List<GameQuest> subQuestsWithCond = getChildQuests().values().stream()
-                .filter(p -> p.getState() == QuestState.QUEST_STATE_UNFINISHED)
-                .filter(p -> p.getQuestData().getFailCond().stream().anyMatch(q -> q.getType() == condType))
-                .toList();
+            if (subQuest.getState() != QuestState.QUEST_STATE_UNFINISHED
+                || subQuest.getQuestData().getFailCond().stream().noneMatch(q -> q.getType() == condType)) {
+                return;
+            }
             val questSystem = this.getOwner().getServer().getQuestSystem();
 
-            for (GameQuest subQuestWithCond : subQuestsWithCond) {
-                val failCond = subQuestWithCond.getQuestData().getFailCond();
-                val failCondComb = subQuestWithCond.getQuestData().getFailCondComb();
-                val failProgressList = subQuestWithCond.getFailProgressList();
-
-                val shouldFail = questSystem.checkAndUpdateContent(
-                    subQuestWithCond, failProgressList, failCond, failCondComb,
-                    condType, paramStr, params);
+            val failCond = subQuest.getQuestData().getFailCond();
+            val failCondComb = subQuest.getQuestData().getFailCondComb();
+            val failProgressList = subQuest.getFailProgressList();
 
-                if (shouldFail)
-                    subQuestWithCond.fail();
-            }
+            val shouldFail = questSystem.checkAndUpdateContent(
+                subQuest, failProgressList, failCond, failCondComb,
+                condType, paramStr, params);
 
+            if (shouldFail)
+                subQuest.fail();
         } catch (Exception e) {
             logger.error("An error occurred while trying to fail quest.", e);
         }
     }
 
-    public void tryFinishSubQuests(QuestContent condType, String paramStr, int... params) {
+    public void tryFinishSubQuest(GameQuest subQuest, QuestContent condType, String paramStr, int... params) {
         try {
-            List<GameQuest> subQuestsWithCond = getChildQuests().values().stream()
-                //There are subQuests with no acceptCond, but can be finished (example: 35104)
-                .filter(p -> p.getState() == QuestState.QUEST_STATE_UNFINISHED && p.getQuestData().getAcceptCond() != null)
-                .filter(p -> p.getQuestData().getFinishCond().stream().anyMatch(q -> q.getType() == condType))
-                .toList();
+            //There are subQuests with no acceptCond, but can be finished (example: 35104)
+            if (subQuest.getState() != QuestState.QUEST_STATE_UNFINISHED || subQuest.getQuestData().getAcceptCond() == null
+                || subQuest.getQuestData().getFinishCond().stream().noneMatch(q -> q.getType() == condType)) {
+                return;
+            }
             val questSystem = this.getOwner().getServer().getQuestSystem();
 
-            for (GameQuest subQuestWithCond : subQuestsWithCond) {
-                val finishCond = subQuestWithCond.getQuestData().getFinishCond();
-                val finishCondComb = subQuestWithCond.getQuestData().getFinishCondComb();
-                val finishProgressList = subQuestWithCond.getFinishProgressList();
+            val finishCond = subQuest.getQuestData().getFinishCond();
+            val finishCondComb = subQuest.getQuestData().getFinishCondComb();
+            val finishProgressList = subQuest.getFinishProgressList();
 
-                val shouldFinish = questSystem.checkAndUpdateContent(subQuestWithCond,
-                    finishProgressList, finishCond, finishCondComb,
-                    condType, paramStr, params);
+            val shouldFinish = questSystem.checkAndUpdateContent(subQuest,
+                finishProgressList, finishCond, finishCondComb,
+                condType, paramStr, params);
 
-                if (shouldFinish)
-                    subQuestWithCond.finish();
-            }
+            if (shouldFinish)
+                subQuest.finish();
         } catch (Exception e) {
             logger.debug("An error occurred while trying to finish quest.", e);
         }
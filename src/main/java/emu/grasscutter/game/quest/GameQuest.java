@@ -70,6 +70,7 @@ public class GameQuest {
         this.startTime = this.acceptTime;
         this.startGameDay = getOwner().getWorld().getTotalGameTimeDays();
         this.state = QuestState.QUEST_STATE_UNFINISHED;
+        getOwner().getQuestManager().getContentIndex().add(this);
         val triggerCond = questData.getFinishCond().stream()
             .filter(p -> p.getType() == QuestContent.QUEST_CONTENT_TRIGGER_FIRE).toList();
         if (triggerCond.size() > 0) {
@@ -0,0 +1,103 @@
+package emu.grasscutter.game.quest;
+
+import emu.grasscutter.Grasscutter;
+import emu.grasscutter.data.common.quest.SubQuestData;
+import emu.grasscutter.data.common.quest.SubQuestData.QuestContentCondition;
+import emu.grasscutter.game.quest.enums.QuestContent;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectLinkedOpenHashSet;
+import lombok.val;
+
+import java.util.*;
+
+/**
+ * The started sub quests of a player, indexed by the content types of their finish and fail conditions.
+ * Conditions whose handler matches events by their first param are also indexed by that param,
+ * so an event only reaches the quests that can actually make progress from it.
+ * Quests that are not unfinished anymore are dropped lazily by the caller.
+ */
+public class QuestContentIndex {
+    // Content type -> param -> quests, for handlers that compare the first param
+    private final Map<QuestContent, Int2ObjectMap<Set<GameQuest>>> byParam = new EnumMap<>(QuestContent.class);
+    // Content type -> quests, for handlers with their own event matching
+    private final Map<QuestContent, Set<GameQuest>> byType = new EnumMap<>(QuestContent.class);
+
+    public synchronized void add(GameQuest quest) {
+        val questSystem = Grasscutter.getGameServer().getQuestSystem();
+        this.forEachCondition(quest, (type, param) -> {
+            if (questSystem.isContentMatchedByParam(type)) {
+                this.byParam.computeIfAbsent(type, t -> new Int2ObjectOpenHashMap<>())
+                    .computeIfAbsent(param, p -> new ObjectLinkedOpenHashSet<>()).add(quest);
+            } else {
+                this.byType.computeIfAbsent(type, t -> new ObjectLinkedOpenHashSet<>()).add(quest);
+            }
+        });
+    }
+
+    public synchronized void remove(GameQuest quest) {
+        val questSystem = Grasscutter.getGameServer().getQuestSystem();
+        this.forEachCondition(quest, (type, param) -> {
+            if (questSystem.isContentMatchedByParam(type)) {
+                Int2ObjectMap<Set<GameQuest>> params = this.byParam.get(type);
+                Set<GameQuest> quests = params != null ? params.get(param) : null;
+                if (quests != null && quests.remove(quest) && quests.isEmpty()) {
+                    params.remove(param);
+                }
+            } else {
+                Set<GameQuest> quests = this.byType.get(type);
+                if (quests != null) {
+                    quests.remove(quest);
+                }
+            }
+        });
+    }
+
+    /**
+     * @return A snapshot of the quests that might make progress from the event.
+     */
+    public synchronized List<GameQuest> getQuests(QuestContent type, int param) {
+        Set<GameQuest> typed = this.byType.get(type);
+        Int2ObjectMap<Set<GameQuest>> params = this.byParam.get(type);
+        Set<GameQuest> matched = params != null ? params.get(param) : null;
+
+        if (typed == null || typed.isEmpty()) {
+            return matched != null ? new ArrayList<>(matched) : List.of();
+        }
+        if (matched == null || matched.isEmpty()) {
+            return new ArrayList<>(typed);
+        }
+
+        Set<GameQuest> result = new ObjectLinkedOpenHashSet<>(matched);
+        result.addAll(typed);
+        return new ArrayList<>(result);
+    }
+
+    public synchronized void clear() {
+        this.byParam.clear();
+        this.byType.clear();
+    }
+
+    private void forEachCondition(GameQuest quest, ConditionConsumer consumer) {
+        SubQuestData questData = quest.getQuestData();
+        if (questData == null) return;
+
+        this.forEachCondition(questData.getFinishCond(), consumer);
+        this.forEachCondition(questData.getFailCond(), consumer);
+    }
+
+    private void forEachCondition(List<QuestContentCondition> conditions, ConditionConsumer consumer) {
+        if (conditions == null) return;
+
+        for (QuestContentCondition condition : conditions) {
+            if (condition.getType() == null) continue;
+
+            int[] param = condition.getParam();
+            consumer.accept(condition.getType(), param != null && param.length > 0 ? param[0] : 0);
+        }
+    }
+
+    private interface ConditionConsumer {
+        void accept(QuestContent type, int param);
+    }
+}
@@ -14,6 +14,7 @@ import emu.grasscutter.game.world.World;
 import emu.grasscutter.server.packet.send.PacketFinishedParentQuestUpdateNotify;
 import emu.grasscutter.server.packet.send.PacketQuestGlobalVarNotify;
 import emu.grasscutter.utils.Position;
+import emu.grasscutter.utils.SerialExecutor;
 import io.netty.util.concurrent.FastThreadLocalThread;
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
@@ -24,25 +25,36 @@ import org.anime_game_servers.core.gi.enums.QuestState;
 import javax.annotation.Nonnull;
 import java.util.*;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.LinkedBlockingDeque;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
 
 public class QuestManager extends BasePlayerManager {
 
     @Getter private final Player player;
     @Getter private final Int2ObjectMap<GameMainQuest> mainQuests;
+    // Unfinished sub quests by the content events they listen to
+    @Getter private final QuestContentIndex contentIndex;
+
+    private static final LongAdder contentEvents = new LongAdder();
+    private static final LongAdder evaluatedQuests = new LongAdder();
 
     private long lastHourCheck = 0;
     private long lastDayCheck = 0;
 
-    public static final ExecutorService eventExecutor;
-    static {
-        eventExecutor = new ThreadPoolExecutor(4, 4,
-            60, TimeUnit.SECONDS, new LinkedBlockingDeque<>(1000),
-            FastThreadLocalThread::new, new ThreadPoolExecutor.AbortPolicy());
-    }
+    // Shared by the event lanes of all players, each lane only occupies one thread at a time
+    public static final ExecutorService eventExecutor = Executors.newFixedThreadPool(
+        Runtime.getRuntime().availableProcessors(), FastThreadLocalThread::new);
+    private static final int EVENT_LANE_CAPACITY = 4096;
+    private static final long EVENT_LANE_MAX_WAIT_MS = 50;
+    private static final LongAdder droppedEvents = new LongAdder();
+    /**
+     * Quest events of this player, run in order
+     */
+    private final SerialExecutor eventLane;
+    // Set while a game time tick is queued, later ticks are merged into it
+    private final AtomicBoolean timeTickQueued = new AtomicBoolean();
     /*
         On SetPlayerBornDataReq, the server sends FinishedParentQuestNotify, with this exact
         parentQuestList. Captured on Game version 2.7
@@ -87,6 +99,33 @@ public class QuestManager extends BasePlayerManager {
         super(player);
         this.player = player;
         this.mainQuests = new Int2ObjectOpenHashMap<>();
+        this.contentIndex = new QuestContentIndex();
+        this.eventLane = new SerialExecutor(eventExecutor, EVENT_LANE_CAPACITY, EVENT_LANE_MAX_WAIT_MS);
+    }
+
+    public int getEventQueueSize() {
+        return this.eventLane.getQueueSize();
+    }
+
+    /**
+     * @return The amount of quest events dropped because the lane of a player was full, for all players.
+     */
+    public static long getDroppedEventCount() {
+        return droppedEvents.sum();
+    }
+
+    /**
+     * @return The amount of content events triggered on all players.
+     */
+    public static long getContentEventCount() {
+        return contentEvents.sum();
+    }
+
+    /**
+     * @return The amount of sub quests that were checked for progress by content events.
+     */
+    public static long getEvaluatedQuestCount() {
+        return evaluatedQuests.sum();
     }
 
     // TODO store user value set on enable
@@ -135,10 +174,18 @@ public class QuestManager extends BasePlayerManager {
         }
         checkTimeVars(world);
 
-        // trigger game time tick for quests
-        queueEvent(QuestContent.QUEST_CONTENT_GAME_TIME_TICK,
-            world.getGameTimeHours() , // hours
-            0);
+        // trigger game time tick for quests, the tick reads the time once it runs so a queued one is enough
+        if (this.timeTickQueued.compareAndSet(false, true)) {
+            queueTask(() -> {
+                this.timeTickQueued.set(false);
+                val currentWorld = player.getWorld();
+                if (currentWorld == null) return;
+
+                triggerEvent(QuestContent.QUEST_CONTENT_GAME_TIME_TICK, "",
+                    currentWorld.getGameTimeHours(), // hours
+                    0);
+            });
+        }
     }
 
     private void checkTimeVars(@Nonnull World world){
@@ -350,10 +397,21 @@ public class QuestManager extends BasePlayerManager {
     }
 
     public void queueEvent(QuestContent condType, String paramStr, int... params) {
-        eventExecutor.submit(() -> triggerEvent(condType, paramStr, params));
+        queueTask(() -> triggerEvent(condType, paramStr, params));
     }
     public void queueEvent(QuestCond condType, String paramStr, int... params) {
-        eventExecutor.submit(() -> triggerEvent(condType, paramStr, params));
+        queueTask(() -> triggerEvent(condType, paramStr, params));
+    }
+
+    /**
+     * Runs the task on this player's quest lane, after all quest work queued before it.
+     */
+    public void queueTask(Runnable task) {
+        if (!this.eventLane.submit(task)) {
+            droppedEvents.increment();
+            QuestSystem.getLogger().warn("Dropped quest event for player {}, {} events queued",
+                getPlayer().getUid(), this.eventLane.getQueueSize());
+        }
     }
 
     //QUEST_EXEC are handled directly by each subQuest
@@ -398,12 +456,23 @@ public class QuestManager extends BasePlayerManager {
 
     public void triggerEvent(QuestContent condType, String paramStr, int... params) {
         QuestSystem.getLogger().debug("Trigger Event {}, {}, {}", condType, paramStr, params);
-        List<GameMainQuest> checkMainQuests = this.getMainQuests().values().stream()
-            .filter(i -> i.getState() != ParentQuestState.PARENT_QUEST_STATE_FINISHED)
-            .toList();
-        for (GameMainQuest mainQuest : checkMainQuests) {
-            mainQuest.tryFailSubQuests(condType, paramStr, params);
-            mainQuest.tryFinishSubQuests(condType, paramStr, params);
+        contentEvents.increment();
+
+        val checkQuests = this.contentIndex.getQuests(condType, params.length > 0 ? params[0] : 0);
+        for (GameQuest quest : checkQuests) {
+            if (quest.getState() != QuestState.QUEST_STATE_UNFINISHED) {
+                this.contentIndex.remove(quest);
+                continue;
+            }
+
+            val mainQuest = quest.getMainQuest();
+            if (mainQuest.getState() == ParentQuestState.PARENT_QUEST_STATE_FINISHED) {
+                continue;
+            }
+
+            evaluatedQuests.increment();
+            mainQuest.tryFailSubQuest(quest, condType, paramStr, params);
+            mainQuest.tryFinishSubQuest(quest, condType, paramStr, params);
         }
     }
 
@@ -413,7 +482,7 @@ public class QuestManager extends BasePlayerManager {
      * @param quest
      */
     public void checkQuestAlreadyFulfilled(GameQuest quest, boolean shouldReset) {
-        Grasscutter.getGameServer().getScheduler().scheduleDelayedTask(() -> {
+        Grasscutter.getGameServer().getScheduler().scheduleDelayedTask(() -> queueTask(() -> {
             val questSystem = getPlayer().getServer().getQuestSystem();
             val questData = quest.getQuestData();
             if (questData == null) {
@@ -432,7 +501,7 @@ public class QuestManager extends BasePlayerManager {
                     quest.fail();
                 }
             }
-        }, 1);
+        }), 1);
     }
 
     public List<QuestGroupSuite> getSceneGroupSuite(int sceneId) {
@@ -445,8 +514,10 @@ public class QuestManager extends BasePlayerManager {
             .toList();
     }
     public void loadFromDatabase() {
-        List<GameMainQuest> quests = DatabaseHelper.getAllQuests(getPlayer());
+        this.loadFromDatabase(DatabaseHelper.getAllQuests(getPlayer()));
+    }
 
+    public void loadFromDatabase(List<GameMainQuest> quests) {
         for (GameMainQuest mainQuest : quests) {
             boolean cancelAdd = false;
             mainQuest.setOwner(this.getPlayer());
@@ -466,6 +537,9 @@ public class QuestManager extends BasePlayerManager {
 
             if (!cancelAdd) {
                 this.getMainQuests().put(mainQuest.getParentQuestId(), mainQuest);
+                mainQuest.getChildQuests().values().stream()
+                    .filter(quest -> quest.getState() == QuestState.QUEST_STATE_UNFINISHED)
+                    .forEach(this.contentIndex::add);
             }
         }
     }
@@ -15,6 +15,8 @@ import emu.grasscutter.server.game.GameServer;
 import emu.grasscutter.server.packet.send.PacketQuestProgressUpdateNotify;
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
 import lombok.Getter;
 import lombok.val;
 import org.slf4j.Logger;
@@ -27,6 +29,8 @@ public class QuestSystem extends BaseGameSystem {
     private final Int2ObjectMap<BaseCondition> condHandlers;
     private final Int2ObjectMap<BaseContent> contHandlers;
     private final Int2ObjectMap<QuestExecHandler> execHandlers;
+    // Content types whose handler only accepts events with the condition's first param
+    private final IntSet paramMatchedContents;
 
     public QuestSystem(GameServer server) {
         super(server);
@@ -34,6 +38,7 @@ public class QuestSystem extends BaseGameSystem {
         this.condHandlers = new Int2ObjectOpenHashMap<>();
         this.contHandlers = new Int2ObjectOpenHashMap<>();
         this.execHandlers = new Int2ObjectOpenHashMap<>();
+        this.paramMatchedContents = new IntOpenHashSet();
 
         this.registerHandlers();
     }
@@ -42,6 +47,29 @@ public class QuestSystem extends BaseGameSystem {
         this.registerHandlers(this.condHandlers, "emu.grasscutter.game.quest.conditions", BaseCondition.class);
         this.registerHandlers(this.contHandlers, "emu.grasscutter.game.quest.content", BaseContent.class);
         this.registerHandlers(this.execHandlers, "emu.grasscutter.game.quest.exec", QuestExecHandler.class);
+
+        this.paramMatchedContents.clear();
+        for (QuestContent type : QuestContent.values()) {
+            if (this.usesDefaultEventMatching(this.getContentHandler(type, null))) {
+                this.paramMatchedContents.add(type.getValue());
+            }
+        }
+    }
+
+    private boolean usesDefaultEventMatching(BaseContent handler) {
+        try {
+            return handler == null || handler.getClass().getMethod("isEvent", SubQuestData.class,
+                QuestContentCondition.class, QuestContent.class, String.class, int[].class).getDeclaringClass() == BaseContent.class;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return True if events of this content type only affect conditions with the same first param.
+     */
+    public boolean isContentMatchedByParam(QuestContent type) {
+        return this.paramMatchedContents.contains(type.getValue());
     }
 
     public <T> void registerHandlers(Int2ObjectMap<T> map, String packageName, Class<T> clazz) {
@@ -164,7 +192,7 @@ public class QuestSystem extends BaseGameSystem {
             return;
         }
 
-        QuestManager.eventExecutor.submit(() -> {
+        quest.getOwner().getQuestManager().queueTask(() -> {
             if (!handler.execute(quest, execParam, params)) {
                 getLogger().debug("exec trigger failed {} at {}", execParam.getType().getValue(), quest.getQuestData());
             }
@@ -9,6 +9,7 @@ import emu.grasscutter.server.game.BaseGameSystem;
 import emu.grasscutter.server.game.GameServer;
 import emu.grasscutter.utils.Utils;
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMaps;
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 
 import static emu.grasscutter.config.Configuration.*;
@@ -18,16 +19,15 @@ import java.util.List;
 import java.util.Map;
 
 public class ShopSystem extends BaseGameSystem {
-    private final Int2ObjectMap<List<ShopInfo>> shopData;
-    private final Int2ObjectMap<List<ItemParamData>> shopChestData;
+    // Replaced as a whole on reload
+    private volatile Int2ObjectMap<List<ShopInfo>> shopData = Int2ObjectMaps.emptyMap();
+    private volatile Int2ObjectMap<List<ItemParamData>> shopChestData = Int2ObjectMaps.emptyMap();
 
     private static final int REFRESH_HOUR = 4; // In GMT+8 server
     private static final String TIME_ZONE = "Asia/Shanghai"; // GMT+8 Timezone
 
     public ShopSystem(GameServer server) {
         super(server);
-        this.shopData = new Int2ObjectOpenHashMap<>();
-        this.shopChestData = new Int2ObjectOpenHashMap<>();
         this.load();
     }
 
@@ -49,13 +49,13 @@ public class ShopSystem extends BaseGameSystem {
     }
 
     private void loadShop() {
-        getShopData().clear();
+        Int2ObjectMap<List<ShopInfo>> shopData = new Int2ObjectOpenHashMap<>();
         try {
             List<ShopTable> banners = DataLoader.loadList("Shop.json", ShopTable.class);
             if (banners.size() > 0) {
                 for (ShopTable shopTable : banners) {
                     shopTable.getItems().forEach(ShopInfo::removeVirtualCosts);
-                    getShopData().put(shopTable.getShopId(), shopTable.getItems());
+                    shopData.put(shopTable.getShopId(), shopTable.getItems());
                 }
                 Grasscutter.getLogger().debug("Shop data successfully loaded.");
             } else {
@@ -64,21 +64,23 @@ public class ShopSystem extends BaseGameSystem {
 
             if (GAME_OPTIONS.enableShopItems) {
                 GameData.getShopGoodsDataEntries().forEach((k, v) -> {
-                    if (!getShopData().containsKey(k.intValue()))
-                        getShopData().put(k.intValue(), new ArrayList<>());
+                    if (!shopData.containsKey(k.intValue()))
+                        shopData.put(k.intValue(), new ArrayList<>());
                     for (ShopGoodsData sgd : v) {
                         var shopInfo = new ShopInfo(sgd);
-                        getShopData().get(k.intValue()).add(shopInfo);
+                        shopData.get(k.intValue()).add(shopInfo);
                     }
                 });
             }
         } catch (Exception e) {
             Grasscutter.getLogger().error("Unable to load shop data.", e);
+            return;
         }
+        this.shopData = shopData;
     }
 
     private void loadShopChest() {
-        shopChestData.clear();
+        Int2ObjectMap<List<ItemParamData>> shopChestData = new Int2ObjectOpenHashMap<>();
         try {
             Map<Integer, String> chestMap = DataLoader.loadMap("ShopChest.v2.json", Integer.class, String.class);
             chestMap.forEach((chestId, itemStr) -> {
@@ -91,12 +93,14 @@ public class ShopSystem extends BaseGameSystem {
                     int count = Integer.parseInt(idAndCount[1]);
                     list.add(new ItemParamData(id, count));
                 }
-                this.shopChestData.put((int) chestId, list);
+                shopChestData.put((int) chestId, list);
             });
             Grasscutter.getLogger().debug("Loaded " + chestMap.size() + " ShopChest entries.");
         } catch (Exception e) {
             Grasscutter.getLogger().error("Unable to load ShopChest data.", e);
+            return;
         }
+        this.shopChestData = shopChestData;
     }
 
     public synchronized void load() {
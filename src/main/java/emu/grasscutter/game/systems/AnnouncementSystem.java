@@ -19,11 +19,11 @@ import java.util.*;
 
 @Getter
 public class AnnouncementSystem extends BaseGameSystem {
-    private final Map<Integer, AnnounceConfigItem> announceConfigItemMap;
+    // Replaced as a whole on reload
+    private volatile Map<Integer, AnnounceConfigItem> announceConfigItemMap = Map.of();
 
     public AnnouncementSystem(GameServer server) {
         super(server);
-        this.announceConfigItemMap = new HashMap<>();
         loadConfig();
     }
 
@@ -31,8 +31,9 @@ public class AnnouncementSystem extends BaseGameSystem {
         try {
             List<AnnounceConfigItem> announceConfigItems = DataLoader.loadList("Announcement.json", AnnounceConfigItem.class);
 
-            announceConfigItemMap.clear();
+            Map<Integer, AnnounceConfigItem> announceConfigItemMap = new HashMap<>();
             announceConfigItems.forEach(i -> announceConfigItemMap.put(i.getTemplateId(), i));
+            this.announceConfigItemMap = announceConfigItemMap;
         } catch (Exception e) {
             Grasscutter.getLogger().error("Unable to load server announce config.", e);
         }
@@ -38,22 +38,30 @@ public class MultiplayerSystem extends BaseGameSystem {
         }
         */
 
-        // Get request
-        CoopRequest request = target.getCoopRequests().get(player.getUid());
-
-        if (request != null && !request.isExpired()) {
-            // Join request already exists
-            return;
-        }
+        // The request belongs to the target, so it is handled on the target's logic loop
+        target.getSession().execute(() -> {
+            // Get request
+            CoopRequest request = target.getCoopRequests().get(player.getUid());
+
+            if (request != null && !request.isExpired()) {
+                // Join request already exists
+                return;
+            }
 
-        // Put request in
-        request = new CoopRequest(player);
-        target.getCoopRequests().put(player.getUid(), request);
+            // Put request in
+            request = new CoopRequest(player);
+            target.getCoopRequests().put(player.getUid(), request);
 
-        // Packet
-        target.sendPacket(new PacketPlayerApplyEnterMpNotify(player));
+            // Packet
+            target.sendPacket(new PacketPlayerApplyEnterMpNotify(player));
+        });
     }
 
+    /**
+     * Handles the reply of the host, on the host's logic loop.
+     * The requester is changed on its own loop and added to the host's world on the host's loop again,
+     * as the two players might run on different loops.
+     */
     public void applyEnterMpReply(Player hostPlayer, int applyUid, boolean isAgreed) {
         // Checks
         CoopRequest request = hostPlayer.getCoopRequests().get(applyUid);
@@ -65,17 +73,34 @@ public class MultiplayerSystem extends BaseGameSystem {
         Player requester = request.getRequester();
         hostPlayer.getCoopRequests().remove(applyUid);
 
-        // Sanity checks - Dont let the requesting player join if they are already in multiplayer
-        if (requester.getWorld().isMultiplayer()) {
-            request.getRequester().sendPacket(new PacketPlayerApplyEnterMpResultNotify(hostPlayer, false, MpEnterResultReason.PLAYER_CANNOT_ENTER_MP));
-            return;
-        }
+        requester.getSession().execute(() -> {
+            // Sanity checks - Dont let the requesting player join if they are already in multiplayer
+            if (requester.getWorld() == null || requester.getWorld().isMultiplayer()) {
+                requester.sendPacket(new PacketPlayerApplyEnterMpResultNotify(hostPlayer, false, MpEnterResultReason.PLAYER_CANNOT_ENTER_MP));
+                return;
+            }
+
+            // Response packet
+            requester.sendPacket(new PacketPlayerApplyEnterMpResultNotify(hostPlayer, isAgreed, MpEnterResultReason.PLAYER_JUDGE));
+
+            // Declined
+            if (!isAgreed) {
+                return;
+            }
+
+            // Leave the requester's own world here, it runs on the requester's loop
+            requester.getWorld().removePlayer(requester);
 
-        // Response packet
-        request.getRequester().sendPacket(new PacketPlayerApplyEnterMpResultNotify(hostPlayer, isAgreed, MpEnterResultReason.PLAYER_JUDGE));
+            hostPlayer.getSession().execute(() -> this.joinHost(hostPlayer, requester));
+        });
+    }
 
-        // Declined
-        if (!isAgreed) {
+    private void joinHost(Player hostPlayer, Player requester) {
+        if (hostPlayer.getWorld() == null) {
+            // The host logged out meanwhile, send the requester back to its own world
+            World world = new World(requester);
+            world.addPlayer(requester);
+            requester.sendPacket(new PacketPlayerEnterSceneNotify(requester, EnterType.ENTER_SELF, EnterReason.TeamBack, requester.getSceneId(), requester.getPosition()));
             return;
         }
 
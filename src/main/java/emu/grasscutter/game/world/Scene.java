@@ -66,6 +66,14 @@ public class Scene {
     @Getter private final List<Player> players = new CopyOnWriteArrayList<>();
     @Getter private final Map<Integer, GameEntity> entities = new ConcurrentHashMap<>();
     @Getter private final Map<Integer, GameEntity> weaponEntities = new ConcurrentHashMap<>();
+    // Entities that were added or moved since the last tick, for region and fall checks
+    private final Set<GameEntity> movedEntities = ConcurrentHashMap.newKeySet();
+    // Script entities by group id, and by group and config id
+    private final Map<Integer, Set<GameEntity>> entitiesByGroup = new ConcurrentHashMap<>();
+    private final Map<Long, GameEntity> entitiesByConfigId = new ConcurrentHashMap<>();
+    // Entities whose changed fight properties are sent once the current batch ends
+    private final Set<GameEntity> pendingFightPropSync = new LinkedHashSet<>();
+    private int fightPropBatchDepth = 0;
     private final Set<SpawnDataEntry> spawnedEntities = ConcurrentHashMap.newKeySet();
     @Getter private final Set<SpawnDataEntry> deadSpawnedEntities = ConcurrentHashMap.newKeySet();
     private final Set<SceneBlock> loadedBlocks = ConcurrentHashMap.newKeySet();
@@ -131,19 +139,30 @@ public class Scene {
     }
 
     public GameEntity getEntityById(int id) {
+        // Entities in the scene are the common case, e.g. the moving avatars
+        GameEntity entity = this.entities.get(id);
+        if (entity != null) return entity;
+        entity = this.weaponEntities.get(id);
+        if (entity != null) return entity;
+
         if (id == 0x13800001) return this.sceneEntity;
         else if (id == this.world.getLevelEntityId()) return this.world.getEntity();
 
-        val teamEntityPlayer = this.players.stream().filter(p -> p.getTeamManager().getEntity().getId() == id).findAny();
-        if(teamEntityPlayer.isPresent()) return teamEntityPlayer.get().getTeamManager().getEntity();
+        for (Player player : this.players) {
+            val teamEntity = player.getTeamManager().getEntity();
+            if (teamEntity.getId() == id) return teamEntity;
+        }
 
-        Optional<GameEntity> entity = Optional.ofNullable(this.entities.get(id)).or(() -> Optional.ofNullable(this.weaponEntities.get(id)));
-        if (entity.isEmpty() && EntityIdType.idFromEntityId(id) == EntityIdType.AVATAR.getId()) {
-            entity = this.players.stream().map(p -> p.getTeamManager().getActiveTeam()).flatMap(List::stream)
-                .filter(entityAvatar -> entityAvatar.getId() == id).findFirst().map(GameEntity.class::cast);
+        // Avatars of the team that are not on the field
+        if (EntityIdType.idFromEntityId(id) == EntityIdType.AVATAR.getId()) {
+            for (Player player : this.players) {
+                for (EntityAvatar entityAvatar : player.getTeamManager().getActiveTeam()) {
+                    if (entityAvatar.getId() == id) return entityAvatar;
+                }
+            }
         }
 
-        return entity.orElse(null);
+        return null;
     }
 
     public GameEntity getEntityByConfigId(int configId) {
@@ -154,10 +173,61 @@ public class Scene {
     }
 
     public GameEntity getEntityByConfigId(int configId, int groupId) {
-        return this.entities.values().stream()
-            .filter(x -> x.getConfigId() == configId && x.getGroupId() == groupId)
-            .findFirst()
-            .orElse(null);
+        if (groupId <= 0) {
+            return this.entities.values().stream()
+                .filter(x -> x.getConfigId() == configId && x.getGroupId() == groupId)
+                .findFirst()
+                .orElse(null);
+        }
+        return this.entitiesByConfigId.get(getConfigKey(groupId, configId));
+    }
+
+    /**
+     * @return All entities of the group that are currently in this scene.
+     */
+    public Collection<GameEntity> getEntitiesInGroup(int groupId) {
+        if (groupId <= 0) {
+            return this.entities.values().stream().filter(x -> x.getGroupId() == groupId).toList();
+        }
+        val group = this.entitiesByGroup.get(groupId);
+        return group != null ? Collections.unmodifiableSet(group) : List.of();
+    }
+
+    private static long getConfigKey(int groupId, int configId) {
+        return ((long) groupId << 32) | (configId & 0xFFFFFFFFL);
+    }
+
+    private void indexEntity(GameEntity entity) {
+        if (entity.getGroupId() <= 0) return;
+
+        this.entitiesByGroup.computeIfAbsent(entity.getGroupId(), k -> ConcurrentHashMap.newKeySet()).add(entity);
+        this.entitiesByConfigId.put(getConfigKey(entity.getGroupId(), entity.getConfigId()), entity);
+    }
+
+    private void deindexEntity(GameEntity entity, int groupId, int configId) {
+        if (groupId <= 0) return;
+
+        val group = this.entitiesByGroup.get(groupId);
+        if (group != null) {
+            group.remove(entity);
+        }
+
+        val key = getConfigKey(groupId, configId);
+        if (this.entitiesByConfigId.remove(key, entity) && group != null) {
+            // Another entity with the same ids might still be in the scene
+            group.stream().filter(e -> e.getConfigId() == configId).findFirst()
+                .ifPresent(e -> this.entitiesByConfigId.putIfAbsent(key, e));
+        }
+    }
+
+    /**
+     * Keeps the group and config id indexes up to date when an entity's ids change after it was added.
+     */
+    public void onEntityIdsChanged(GameEntity entity, int oldGroupId, int oldConfigId) {
+        if (this.entities.get(entity.getId()) != entity) return;
+
+        deindexEntity(entity, oldGroupId, oldConfigId);
+        indexEntity(entity);
     }
 
     @Nullable
@@ -270,6 +340,10 @@ public class Scene {
 
     private void addEntityDirectly(GameEntity entity) {
         this.entities.put(entity.getId(), entity);
+        this.movedEntities.add(entity);
+        // The appear notify carries all fight properties, only later changes need a sync
+        entity.clearDirtyFightProperties();
+        indexEntity(entity);
         entity.onCreate(); // Call entity create event
     }
 
@@ -316,6 +390,8 @@ public class Scene {
 
     private GameEntity removeEntityDirectly(GameEntity entity) {
         val removed = this.entities.remove(entity.getId());
+        Optional.ofNullable(removed).ifPresent(this.movedEntities::remove);
+        Optional.ofNullable(removed).ifPresent(e -> deindexEntity(e, e.getGroupId(), e.getConfigId()));
         Optional.ofNullable(removed).ifPresent(GameEntity::onRemoved); //Call entity remove event
 
         //if(entity instanceof EntityWeapon) {
@@ -361,6 +437,40 @@ public class Scene {
         entities.forEach(x -> x.afterCreate(List.of(player)));
     }
 
+    /**
+     * Sends the changed fight properties of the entity, or once the current batch ends if there is one.
+     */
+    public void queueFightPropSync(GameEntity entity) {
+        synchronized (this.pendingFightPropSync) {
+            if (this.fightPropBatchDepth > 0) {
+                this.pendingFightPropSync.add(entity);
+                return;
+            }
+        }
+        entity.syncFightProperties();
+    }
+
+    /**
+     * Runs the action and sends the fight properties it changed afterwards, one packet per entity.
+     */
+    public void batchFightPropSync(Runnable action) {
+        synchronized (this.pendingFightPropSync) {
+            this.fightPropBatchDepth++;
+        }
+        try {
+            action.run();
+        } finally {
+            List<GameEntity> toSync = List.of();
+            synchronized (this.pendingFightPropSync) {
+                if (--this.fightPropBatchDepth == 0 && !this.pendingFightPropSync.isEmpty()) {
+                    toSync = new ArrayList<>(this.pendingFightPropSync);
+                    this.pendingFightPropSync.clear();
+                }
+            }
+            toSync.forEach(GameEntity::syncFightProperties);
+        }
+    }
+
     public void handleAttack(AttackResult result) {
         //GameEntity attacker = getEntityById(result.getAttackerId());
         val target = getEntityById(result.getDefenseId());
@@ -443,7 +553,8 @@ public class Scene {
             checkSpawns();
         }
         // Triggers
-        this.scriptManager.checkRegions();
+        val movedEntities = this.takeMovedEntities();
+        this.scriptManager.checkRegions(movedEntities);
 
         Optional.ofNullable(this.challenge).ifPresent(WorldChallenge::onCheckTimeOut);
 
@@ -452,7 +563,7 @@ public class Scene {
         checkPlatforms();
         checkNpcGroup();
         finishLoading();
-        checkPlayerRespawn();
+        checkPlayerRespawn(movedEntities);
 
         if (this.tickCount % 10 == 0) {
             broadcastPacket(new PacketSceneTimeNotify(this));
@@ -460,13 +571,31 @@ public class Scene {
         this.tickCount++;
     }
 
-    private void checkPlayerRespawn() {
+    private void checkPlayerRespawn(List<GameEntity> movedEntities) {
         if (this.scriptManager.getConfig() == null) return;
 
         val diePos = this.scriptManager.getConfig().getDieY();
-        // Check if we need a respawn
+        // Check if we need a respawn, entities can only fall below the threshold by moving
         this.players.stream().filter(p -> diePos >= p.getPosition().getY()).forEach(this::respawnPlayer);
-        this.entities.values().stream().filter(e -> diePos >= e.getPosition().getY()).forEach(this::killEntity);
+        movedEntities.stream().filter(e -> diePos >= e.getPosition().getY() && isInScene(e)).forEach(this::killEntity);
+    }
+
+    /**
+     * Called by {@link GameEntity#move}, the entity is checked against regions and the death height on the next tick.
+     */
+    public void onEntityMoved(GameEntity entity) {
+        if (this.entities.get(entity.getId()) == entity) {
+            this.movedEntities.add(entity);
+        }
+    }
+
+    private List<GameEntity> takeMovedEntities() {
+        List<GameEntity> moved = new ArrayList<>(this.movedEntities.size());
+        for (Iterator<GameEntity> iterator = this.movedEntities.iterator(); iterator.hasNext(); ) {
+            moved.add(iterator.next());
+            iterator.remove();
+        }
+        return moved;
     }
 
     private Position getDefaultLocation(Player player) {
@@ -669,6 +798,9 @@ public class Scene {
 
         onLoadGroup(toLoad);
         if(!toLoad.isEmpty()) onRegisterGroups();
+
+        // Persist the groups that were registered or unregistered
+        saveGroups();
     }
 
     private Set<SceneGroup> onLoadBlock(SceneBlock block, List<Player> players) {
@@ -887,6 +1019,7 @@ public class Scene {
      * Send packets to all players in world excluding one, which normally is the owner
      * */
     public void broadcastPacketToOthers(Player excludedPlayer, BasePacket packet) {
+        packet.cacheEncodedData();
         this.players.stream().filter(p -> p != excludedPlayer).forEach(p -> p.sendPacket(packet));
     }
 
@@ -953,8 +1086,19 @@ public class Scene {
             .ifPresent(worktop -> entity.getScene().removeEntity(entity, VisionType.VISION_REMOVE));
     }
 
+    /**
+     * Saves the group instances that changed since they were last saved.
+     * The write queue writes them together in its next flush.
+     */
     public void saveGroups() {
-        this.scriptManager.getCachedGroupInstances().values().forEach(SceneGroupInstance::save);
+        List<SceneGroupInstance> dirty = new ArrayList<>();
+        for (SceneGroupInstance instance : this.scriptManager.getCachedGroupInstances().values()) {
+            if (instance.isDirty()) {
+                instance.markSaved();
+                dirty.add(instance);
+            }
+        }
+        DatabaseHelper.saveGroupInstances(dirty, this.getWorld().getOwner().getUid());
     }
 
     public void saveSceneInstanceData() {
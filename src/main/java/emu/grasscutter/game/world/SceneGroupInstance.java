@@ -2,6 +2,7 @@ package emu.grasscutter.game.world;
 
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -16,27 +17,29 @@ import dev.morphia.annotations.Indexed;
 import emu.grasscutter.database.DatabaseHelper;
 import emu.grasscutter.game.player.Player;
 import lombok.Getter;
-import lombok.Setter;
 import org.jetbrains.annotations.Nullable;
 
 @Entity(value = "group_instances", useDiscriminator = false)
 public class SceneGroupInstance implements SceneGroupUserData {
     @Id private ObjectId id;
 
-    @Indexed private int ownerUid; //This group is owned by the host player
+    @Indexed @Getter private int ownerUid; //This group is owned by the host player
     @Getter private int groupId;
 
     @Getter private transient SceneGroup luaGroup;
-    @Getter @Setter private int targetSuiteId;
-    @Getter @Setter private int activeSuiteId;
+    @Getter private int targetSuiteId;
+    @Getter private int activeSuiteId;
     @Getter private Set<Integer> deadEntities; //Config_ids
     private boolean isCached;
 
     @Getter private Map<Integer, Integer> cachedGadgetStates;
     @Getter private Map<String, Integer> cachedVariables;
 
-    @Getter @Setter private int lastTimeRefreshed;
-    @Nullable @Getter @Setter private Boolean isReplaceable;
+    @Getter private int lastTimeRefreshed;
+    @Nullable @Getter private Boolean isReplaceable;
+
+    // Set when the instance changed since it was last saved
+    private transient volatile boolean dirty;
 
     public SceneGroupInstance(SceneGroup group, Player owner) {
         this.luaGroup = group;
@@ -50,6 +53,7 @@ public class SceneGroupInstance implements SceneGroupUserData {
         this.cachedVariables = new ConcurrentHashMap<>();
 
         this.isCached = false; //This is true when the group is not loaded on scene but caches suite data
+        this.dirty = true;
     }
 
     @Deprecated  // Morphia only!
@@ -63,6 +67,7 @@ public class SceneGroupInstance implements SceneGroupUserData {
         this.luaGroup = group;
         this.groupId = group.getGroupInfo().getId();
         initWithSceneGroup(group.getGroupInfo());
+        this.dirty = true;
     }
 
     public boolean isCached() {
@@ -71,12 +76,48 @@ public class SceneGroupInstance implements SceneGroupUserData {
 
     public void setCached(boolean value) {
         this.isCached = value;
-        save(); //Save each time a group is registered or unregistered
+        this.dirty = true; //Saved with the scene's next group save
+    }
+
+    public void setTargetSuiteId(int targetSuiteId) {
+        if (this.targetSuiteId != targetSuiteId) this.dirty = true;
+        this.targetSuiteId = targetSuiteId;
+    }
+
+    public void setActiveSuiteId(int activeSuiteId) {
+        if (this.activeSuiteId != activeSuiteId) this.dirty = true;
+        this.activeSuiteId = activeSuiteId;
+    }
+
+    public void setLastTimeRefreshed(int lastTimeRefreshed) {
+        if (this.lastTimeRefreshed != lastTimeRefreshed) this.dirty = true;
+        this.lastTimeRefreshed = lastTimeRefreshed;
+    }
+
+    public void addDeadEntity(int configId) {
+        if (this.deadEntities.add(configId)) this.dirty = true;
+    }
+
+    public void clearDeadEntities() {
+        if (this.deadEntities.isEmpty()) return;
+        this.deadEntities.clear();
+        this.dirty = true;
+    }
+
+    public void setCachedVariable(String name, int value) {
+        Integer old = this.cachedVariables.put(name, value);
+        if (old == null || old != value) this.dirty = true;
     }
 
     public void cacheGadgetState(SceneGadget g, int state) {
-        if(g.isPersistent()) //Only cache when is persistent
-            cachedGadgetStates.put(g.getConfigId(), state);
+        if(g.isPersistent()) { //Only cache when is persistent
+            Integer old = cachedGadgetStates.put(g.getConfigId(), state);
+            if (old == null || old != state) this.dirty = true;
+        }
+    }
+
+    public boolean isDirty() {
+        return this.dirty;
     }
 
     public int getCachedGadgetState(SceneGadget g) {
@@ -84,9 +125,17 @@ public class SceneGroupInstance implements SceneGroupUserData {
     }
 
     public void save() {
+        this.dirty = false;
         DatabaseHelper.saveGroupInstance(this);
     }
 
+    /**
+     * Clears the dirty flag, for when the instance is saved together with others.
+     */
+    void markSaved() {
+        this.dirty = false;
+    }
+
     @Nullable
     @Override
     public Boolean isReplaceable() {
@@ -95,6 +144,7 @@ public class SceneGroupInstance implements SceneGroupUserData {
 
     @Override
     public void setReplaceable(@Nullable Boolean isReplaceable) {
+        if (!Objects.equals(this.isReplaceable, isReplaceable)) this.dirty = true;
         this.isReplaceable = isReplaceable;
     }
 }
@@ -17,7 +17,7 @@ import lombok.Getter;
 public class SceneInstanceData {
     @Id private ObjectId id;
 
-    @Indexed private int ownerUid;
+    @Indexed @Getter private int ownerUid;
     @Getter private int sceneId;
 
     @Getter private Map<Integer, Integer> weatherAreas;
@@ -17,6 +17,8 @@ import emu.grasscutter.net.packet.BasePacket;
 import emu.grasscutter.server.event.player.PlayerTeleportEvent;
 import emu.grasscutter.server.event.player.PlayerTeleportEvent.TeleportType;
 import emu.grasscutter.server.game.GameServer;
+import emu.grasscutter.server.game.GameSessionManager;
+import emu.grasscutter.server.game.LogicEventLoopGroup.LogicEventLoop;
 import emu.grasscutter.server.packet.send.*;
 import emu.grasscutter.utils.Position;
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
@@ -35,6 +37,8 @@ public class World implements Iterable<Player> {
     @Getter private final Player owner;
     @Getter private final List<Player> players;
     @Getter private final Int2ObjectMap<Scene> scenes;
+    // Packets of every player in this world are handled on this loop
+    @Getter private final LogicEventLoop logicLoop;
 
     @Getter private EntityWorld entity;
     private int nextEntityId = 0;
@@ -63,6 +67,8 @@ public class World implements Iterable<Player> {
         this.server = player.getServer();
         this.players = Collections.synchronizedList(new ArrayList<>());
         this.scenes = Int2ObjectMaps.synchronize(new Int2ObjectOpenHashMap<>());
+        this.logicLoop = player.getSession() != null ?
+            player.getSession().getHomeLoop() : GameSessionManager.getLogicLoops().next();
 
         //this.levelEntityId = this.getNextEntityId(EntityIdType.MPLEVEL);
         this.entity = new EntityWorld(this);
@@ -371,14 +377,15 @@ public class World implements Iterable<Player> {
 
     public void broadcastPacket(BasePacket packet) {
         // Send to all players - might have to check if player has been sent data packets
+        packet.cacheEncodedData();
         for (Player player : this.getPlayers()) {
             player.getSession().send(packet);
         }
     }
 
-    // Returns true if the world should be deleted
-    public boolean onTick() {
-        if (this.getPlayerCount() == 0) return true;
+    // Runs on the logic loop of this world, empty worlds are deregistered by the server tick
+    public void onTick() {
+        if (this.getPlayerCount() == 0) return;
         this.scenes.values().stream()
             .filter(scene -> scene.getPlayerCount() > 0)
             .forEach(Scene::onTick);
@@ -399,7 +406,6 @@ public class World implements Iterable<Player> {
             this.owner.updatePlayerGameTime(currentGameTime);
         }
         tickCount++;
-        return false;
     }
 
     public void close() {
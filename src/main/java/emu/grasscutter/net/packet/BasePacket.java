@@ -1,10 +1,14 @@
 package emu.grasscutter.net.packet;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 
 import emu.grasscutter.server.game.GameSession;
 import emu.grasscutter.utils.Crypto;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.UnpooledByteBufAllocator;
 import lombok.val;
 import org.anime_game_servers.core.base.Version;
 import org.anime_game_servers.multi_proto.gi.messages.packet_head.PacketHead;
@@ -12,12 +16,15 @@ import org.anime_game_servers.multi_proto.gi.messages.packet_head.PacketHead;
 public class BasePacket {
     private static final int const1 = 17767; // 0x4567
     private static final int const2 = -30293; // 0x89ab
+    private static final byte[] EMPTY_BYTES = new byte[0];
 
     private int opcode;
     private boolean shouldBuildHeader = false;
 
     private PacketHead header;
     private byte[] data;
+    // Encoded payload per protocol version, only used for packets sent to multiple sessions
+    private Map<Version, byte[]> encodedData;
 
     // Encryption
     private boolean useDispatchKey;
@@ -75,6 +82,24 @@ public class BasePacket {
         this.data = data;
     }
 
+    /**
+     * Makes this packet encode its payload only once per protocol version, no matter to how many
+     * sessions it is sent. The packet must not be modified afterwards.
+     */
+    public BasePacket cacheEncodedData() {
+        if (this.encodedData == null) {
+            this.encodedData = new HashMap<>(2);
+        }
+        return this;
+    }
+
+    public byte[] getEncodedData(Version version) {
+        if (this.encodedData == null) {
+            return this.getData(version);
+        }
+        return this.encodedData.computeIfAbsent(version, this::getData);
+    }
+
     public BasePacket buildHeader(int clientSequence) {
         if (this.getHeader() != null && clientSequence == 0) {
             return this;
@@ -86,33 +111,35 @@ public class BasePacket {
         return this;
     }
 
-    public byte[] build(GameSession session) {
+    /**
+     * Frames and encrypts this packet into a buffer taken from the given allocator.
+     * The caller owns the returned buffer and has to release it.
+     */
+    public ByteBuf encode(GameSession session, ByteBufAllocator allocator) {
         byte[] headerBytes;
         val header = getHeader();
         if (header == null) {
-            headerBytes = new byte[0];
+            headerBytes = EMPTY_BYTES;
         } else {
             headerBytes = header.encodeToByteArray(session.getVersion());
         }
 
-        var data = getData(session.getVersion());
+        var data = getEncodedData(session.getVersion());
         val opcode = getOpcode(session);
 
         if (data == null) {
-            data = new byte[0];
+            data = EMPTY_BYTES;
         }
 
-        ByteArrayOutputStream baos = new ByteArrayOutputStream(2 + 2 + 2 + 4 + headerBytes.length + data.length + 2);
-
-        this.writeUint16(baos, const1);
-        this.writeUint16(baos, opcode);
-        this.writeUint16(baos, headerBytes.length);
-        this.writeUint32(baos, data.length);
-        this.writeBytes(baos, headerBytes);
-        this.writeBytes(baos, data);
-        this.writeUint16(baos, const2);
+        ByteBuf packet = allocator.heapBuffer(2 + 2 + 2 + 4 + headerBytes.length + data.length + 2);
 
-        byte[] packet = baos.toByteArray();
+        packet.writeShort(const1);
+        packet.writeShort(opcode);
+        packet.writeShort(headerBytes.length);
+        packet.writeInt(data.length);
+        packet.writeBytes(headerBytes);
+        packet.writeBytes(data);
+        packet.writeShort(const2);
 
         if (this.shouldEncrypt) {
             Crypto.xor(packet, this.useDispatchKey() ? Crypto.DISPATCH_KEY : Crypto.ENCRYPT_KEY);
@@ -121,26 +148,16 @@ public class BasePacket {
         return packet;
     }
 
-    public void writeUint16(ByteArrayOutputStream baos, int i) {
-        // Unsigned short
-        baos.write((byte) ((i >>> 8) & 0xFF));
-        baos.write((byte) (i & 0xFF));
-    }
-
-    public void writeUint32(ByteArrayOutputStream baos, int i) {
-        // Unsigned int (long)
-        baos.write((byte) ((i >>> 24) & 0xFF));
-        baos.write((byte) ((i >>> 16) & 0xFF));
-        baos.write((byte) ((i >>> 8) & 0xFF));
-        baos.write((byte) (i & 0xFF));
-    }
-
-    public void writeBytes(ByteArrayOutputStream baos, byte[] bytes) {
+    /**
+     * @deprecated Use {@link #encode(GameSession, ByteBufAllocator)}, which does not copy the packet.
+     */
+    @Deprecated
+    public byte[] build(GameSession session) {
+        ByteBuf packet = this.encode(session, UnpooledByteBufAllocator.DEFAULT);
         try {
-            baos.write(bytes);
-        } catch (IOException e) {
-            // TODO Auto-generated catch block
-            e.printStackTrace();
+            return ByteBufUtil.getBytes(packet);
+        } finally {
+            packet.release();
         }
     }
 }
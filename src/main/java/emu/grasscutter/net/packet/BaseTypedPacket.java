@@ -28,7 +28,7 @@ public abstract class BaseTypedPacket<Packet extends ProtoModel> extends BasePac
 
     @Override
     public int getOpcode(GameSession session) {
-        return session.getPackageIdProvider().getPacketId(proto.getClass().getSimpleName());
+        return session.getOpcodeTable().getOpcode(proto.getClass());
     }
 
     @Override @Deprecated
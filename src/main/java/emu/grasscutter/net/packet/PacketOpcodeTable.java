@@ -0,0 +1,55 @@
+package emu.grasscutter.net.packet;
+
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
+import lombok.Getter;
+import org.anime_game_servers.core.base.Version;
+import org.anime_game_servers.multi_proto.core.interfaces.PacketIdProvider;
+import org.anime_game_servers.multi_proto.gi.packet_id.PacketIds;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves packet opcodes of a single protocol version once, so sending a packet
+ * does not need a class name and string lookup every time.
+ */
+public final class PacketOpcodeTable {
+    private static final Map<Version, PacketOpcodeTable> tables = new ConcurrentHashMap<>();
+
+    @Getter private final Version version;
+    @Getter private final PacketIdProvider provider;
+    private final Map<Class<?>, Integer> classOpcodes = new ConcurrentHashMap<>();
+    private final IntSet bannedOpcodes = new IntOpenHashSet();
+
+    private PacketOpcodeTable(Version version) {
+        this.version = version;
+        this.provider = PacketIds.getMapper(version);
+
+        for (String name : PacketOpcodesUtils.BANNED_PACKETS) {
+            int opcode = this.provider.getPacketId(name);
+            if (opcode > 0) {
+                this.bannedOpcodes.add(opcode);
+            }
+        }
+    }
+
+    public static PacketOpcodeTable get(Version version) {
+        return tables.computeIfAbsent(version, PacketOpcodeTable::new);
+    }
+
+    /**
+     * @param protoClass The class of the proto message.
+     * @return The opcode of the message in this version.
+     */
+    public int getOpcode(Class<?> protoClass) {
+        return this.classOpcodes.computeIfAbsent(protoClass, c -> this.provider.getPacketId(c.getSimpleName()));
+    }
+
+    /**
+     * @return True if packets with this opcode must never be sent to the client.
+     */
+    public boolean isBanned(int opcode) {
+        return this.bannedOpcodes.contains(opcode);
+    }
+}
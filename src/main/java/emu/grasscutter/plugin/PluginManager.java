@@ -14,6 +14,7 @@ import java.io.*;
 import java.lang.reflect.Method;
 import java.net.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.jar.*;
 
 /**
@@ -24,6 +25,8 @@ public final class PluginManager {
     private final Map<String, Plugin> plugins = new LinkedHashMap<>();
     /* All currently registered listeners per plugin. */
     private final Map<Plugin, List<EventHandler<? extends Event>>> listeners = new LinkedHashMap<>();
+    /* The handlers to call per event class, in call order. Compiled on first use, cleared when listeners change. */
+    private volatile Map<Class<?>, EventHandler<?>[]> dispatchTable = new ConcurrentHashMap<>();
 
     public PluginManager() {
         this.loadPlugins(); // Load all plugins from the plugins directory.
@@ -221,8 +224,9 @@ public final class PluginManager {
      * @param plugin The plugin registering the listener.
      * @param listener The event listener.
      */
-    public void registerListener(Plugin plugin, EventHandler<? extends Event> listener) {
+    public synchronized void registerListener(Plugin plugin, EventHandler<? extends Event> listener) {
         this.listeners.get(plugin).add(listener);
+        this.dispatchTable = new ConcurrentHashMap<>();
     }
 
     /**
@@ -231,25 +235,55 @@ public final class PluginManager {
      * @param event The event to invoke.
      */
     public void invokeEvent(Event event) {
-        EnumSet.allOf(HandlerPriority.class)
-            .forEach(priority -> this.checkAndFilter(event, priority));
+        for (EventHandler<?> handler : this.getHandlers(event.getClass())) {
+            this.invokeHandler(event, handler);
+        }
     }
 
     /**
-     * Check an event to handlers for the priority.
+     * Checks if any listener would receive an event of the class.
+     * Lets hot paths skip creating events nobody listens to.
      *
-     * @param event    The event being called.
-     * @param priority The priority to call for.
+     * @param eventClass The class of the event.
+     * @return True if the event has at least one listener.
      */
-    private void checkAndFilter(Event event, HandlerPriority priority) {
-        // Add all listeners from every plugin.
-        this.listeners.values().stream()
+    public boolean hasListeners(Class<? extends Event> eventClass) {
+        return this.getHandlers(eventClass).length > 0;
+    }
+
+    /**
+     * Gets the handlers of an event class, ordered by priority.
+     *
+     * @param eventClass The class of the event.
+     * @return The handlers to call, in order.
+     */
+    private EventHandler<?>[] getHandlers(Class<?> eventClass) {
+        EventHandler<?>[] handlers = this.dispatchTable.get(eventClass);
+        return handlers != null ? handlers : this.compileHandlers(eventClass);
+    }
+
+    /**
+     * Collects the handlers of an event class from every plugin.
+     * Handlers of the same priority keep their plugin and registration order.
+     *
+     * @param eventClass The class of the event.
+     * @return The handlers to call, in order.
+     */
+    private synchronized EventHandler<?>[] compileHandlers(Class<?> eventClass) {
+        Map<Class<?>, EventHandler<?>[]> table = this.dispatchTable;
+        EventHandler<?>[] handlers = table.get(eventClass);
+        if (handlers != null) return handlers;
+
+        handlers = this.listeners.values().stream()
             .flatMap(Collection::stream)
-            // Filter the listeners by priority.
-            .filter(handler -> handler.handles().isInstance(event))
-            .filter(handler -> handler.getPriority() == priority)
-            // Invoke the event.
-            .forEach(handler -> this.invokeHandler(event, handler));
+            // Handlers without a priority were never called.
+            .filter(handler -> handler.getPriority() != null)
+            .filter(handler -> handler.handles().isAssignableFrom(eventClass))
+            .sorted(Comparator.comparing(EventHandler::getPriority))
+            .toArray(EventHandler<?>[]::new);
+
+        table.put(eventClass, handlers);
+        return handlers;
     }
 
     /**
@@ -291,7 +325,10 @@ public final class PluginManager {
         }
 
         // Un-register all listeners.
-        this.listeners.remove(plugin);
+        synchronized (this) {
+            this.listeners.remove(plugin);
+            this.dispatchTable = new ConcurrentHashMap<>();
+        }
     }
 
     /**
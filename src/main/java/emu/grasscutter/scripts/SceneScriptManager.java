@@ -21,6 +21,7 @@ import emu.grasscutter.server.packet.send.PacketGroupSuiteNotify;
 import emu.grasscutter.utils.FileUtils;
 import emu.grasscutter.utils.GridPosition;
 import emu.grasscutter.utils.JsonUtils;
+import emu.grasscutter.utils.SerialExecutor;
 import io.netty.util.concurrent.FastThreadLocalThread;
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
@@ -50,6 +51,8 @@ import java.nio.file.Files;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
 import static org.anime_game_servers.gi_lua.models.constants.EventType.EVENT_TIMER_EVENT;
@@ -64,14 +67,18 @@ public class SceneScriptManager {
     /**
      * current triggers controlled by RefreshGroup
      */
-    private final Map<Integer, Set<SceneTrigger>> currentTriggers;
+    private final SceneTriggerIndex currentTriggers;
     private final Map<String, Set<SceneTrigger>> triggersByGroupScene;
     private final Map<Integer, Set<Pair<String, Integer>>> activeGroupTimers;
     private final Map<String, AtomicInteger> triggerInvocations;
     private final Map<Integer, EntityRegion> regions; // <EntityId-Region>
+    private final Set<EntityRegion> unscannedRegions; // Regions that still have to be checked against every entity
     private final Map<Integer, SceneGroup> sceneGroups;
     private final Map<Integer, SceneGroupInstance> sceneGroupsInstances;
     private final Map<Integer, SceneGroupInstance> cachedSceneGroupsInstances;
+    // Groups known to have no saved instance, and whether the saved instances of the scene were loaded
+    private final Set<Integer> missingGroupInstances = ConcurrentHashMap.newKeySet();
+    private volatile boolean groupInstancesPrefetched = false;
     private ScriptMonsterTideService scriptMonsterTideService;
     private ScriptMonsterSpawnService scriptMonsterSpawnService;
     /**
@@ -79,20 +86,29 @@ public class SceneScriptManager {
      */
     private final Map<Integer, Set<SceneGroup>> loadedGroupSetPerBlock;
     private static final Int2ObjectMap<List<Grid>> groupGridsCache = new Int2ObjectOpenHashMap<>();
-    public static final ExecutorService eventExecutor;
-    static {
-        eventExecutor = new ThreadPoolExecutor(4, 4,
-                60, TimeUnit.SECONDS, new LinkedBlockingDeque<>(10000),
-                FastThreadLocalThread::new, new ThreadPoolExecutor.AbortPolicy());
-    }
+    // Shared by the event lanes of all scenes, each lane only occupies one thread at a time
+    public static final ExecutorService eventExecutor = Executors.newFixedThreadPool(
+        Runtime.getRuntime().availableProcessors(), FastThreadLocalThread::new);
+    private static final int EVENT_LANE_CAPACITY = 10000;
+    private static final long EVENT_LANE_MAX_WAIT_MS = 50;
+    private static final long SLOW_TRIGGER_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    /**
+     * Events of this scene, run in order
+     */
+    private final SerialExecutor eventLane;
+    private final Map<String, AtomicLong> triggerLuaNanos;
+    private final BiConsumer<SceneTrigger, ScriptArgs> triggerDispatcher = (trigger, params) -> handleEventForTrigger(params, trigger);
     public SceneScriptManager(Scene scene) {
         this.scene = scene;
-        this.currentTriggers = new ConcurrentHashMap<>();
+        this.currentTriggers = new SceneTriggerIndex();
         this.triggersByGroupScene = new ConcurrentHashMap<>();
         this.activeGroupTimers = new ConcurrentHashMap<>();
         this.triggerInvocations = new ConcurrentHashMap<>();
+        this.triggerLuaNanos = new ConcurrentHashMap<>();
+        this.eventLane = new SerialExecutor(eventExecutor, EVENT_LANE_CAPACITY, EVENT_LANE_MAX_WAIT_MS);
 
         this.regions = new ConcurrentHashMap<>();
+        this.unscannedRegions = ConcurrentHashMap.newKeySet();
         this.variables = new ConcurrentHashMap<>();
         this.sceneGroups = new ConcurrentHashMap<>();
         this.sceneGroupsInstances = new ConcurrentHashMap<>();
@@ -130,18 +146,26 @@ public class SceneScriptManager {
         return getCachedGroupInstanceById(group_id).getCachedVariables();
     }
 
-    public Set<SceneTrigger> getTriggersByEvent(int eventId) {
-        return currentTriggers.computeIfAbsent(eventId, e -> ConcurrentHashMap.newKeySet());
+    /**
+     * Sets a variable of a group, the group instance is saved with the scene's next group save.
+     */
+    public void setVariable(int groupId, String name, int value) {
+        val instance = getCachedGroupInstanceById(groupId);
+        if (instance != null) {
+            instance.setCachedVariable(name, value);
+        }
     }
+
     public int getTriggerCount() {
-        return currentTriggers.size();
+        return currentTriggers.getEventCount();
     }
     public void registerTrigger(List<SceneTrigger> triggers) {
         triggers.forEach(this::registerTrigger);
     }
     public void registerTrigger(SceneTrigger trigger) {
         triggerInvocations.put(trigger.getName(), new AtomicInteger(0));
-        getTriggersByEvent(trigger.getEvent()).add(trigger);
+        triggerLuaNanos.putIfAbsent(trigger.getName(), new AtomicLong());
+        currentTriggers.add(trigger);
         logger.debug("Registered trigger {}", trigger.getName());
     }
 
@@ -149,12 +173,12 @@ public class SceneScriptManager {
         triggers.forEach(this::deregisterTrigger);
     }
     public void deregisterTrigger(SceneTrigger trigger) {
-        getTriggersByEvent(trigger.getEvent()).remove(trigger);
+        currentTriggers.remove(trigger);
         logger.debug("deregistered trigger {}", trigger.getName());
     }
 
     public void resetTriggers(int eventId) {
-        currentTriggers.put(eventId, ConcurrentHashMap.newKeySet());
+        currentTriggers.removeEvent(eventId);
     }
 
     public void resetTriggersForGroupSuite(SceneGroupInstance groupInstance, int suiteIndex) {
@@ -174,7 +198,7 @@ public class SceneScriptManager {
 
         if(!groupSceneTriggers.isEmpty()) {
             for (var trigger : groupSceneTriggers) {
-                currentTriggers.get(trigger.getEvent()).remove(trigger);
+                currentTriggers.remove(trigger);
             }
             groupSceneTriggers.clear();
         }
@@ -259,7 +283,7 @@ public class SceneScriptManager {
         //Refesh variables here
         group.getVariables().forEach(variable -> {
             if(!variable.isNoRefresh())
-                groupInstance.getCachedVariables().put(variable.getName(), variable.getValue());
+                groupInstance.setCachedVariable(variable.getName(), variable.getValue());
         });
 
         groupInstance.setActiveSuiteId(suiteIndex);
@@ -326,6 +350,7 @@ public class SceneScriptManager {
 
     public void registerRegion(EntityRegion region) {
         regions.put(region.getId(), region);
+        unscannedRegions.add(region);
         logger.debug("Registered region {} from group {}", region.getMetaRegion().getConfigId(), region.getGroupId());
     }
     public void registerRegionInGroupSuite(SceneGroup group, SceneSuite suite) {
@@ -336,7 +361,10 @@ public class SceneScriptManager {
         var instance = regions.values().stream()
             .filter(r -> r.getConfigId() == region.getConfigId())
             .findFirst();
-        instance.ifPresent(entityRegion -> regions.remove(entityRegion.getId()));
+        instance.ifPresent(entityRegion -> {
+            regions.remove(entityRegion.getId());
+            unscannedRegions.remove(entityRegion);
+        });
     }
 
     public Map<Integer, Set<SceneGroup>> getLoadedGroupSetPerBlock() {
@@ -367,13 +395,37 @@ public class SceneScriptManager {
     }
 
     public SceneGroupInstance getCachedGroupInstanceById(int groupId) {
-        var instance = cachedSceneGroupsInstances.getOrDefault(groupId, null);
-        if(instance == null) {
-            instance = DatabaseHelper.loadGroupInstance(groupId, scene.getWorld().getHost());
-            if(instance != null) cachedSceneGroupsInstances.put(groupId, instance);
+        var instance = cachedSceneGroupsInstances.get(groupId);
+        if (instance != null || this.missingGroupInstances.contains(groupId)) return instance;
+
+        if (!this.groupInstancesPrefetched) {
+            this.prefetchGroupInstances();
+            instance = cachedSceneGroupsInstances.get(groupId);
+            if (instance != null || this.missingGroupInstances.contains(groupId)) return instance;
         }
 
-        return instance;
+        // Not a group of this scene's meta, look it up on its own
+        instance = DatabaseHelper.loadGroupInstance(groupId, scene.getWorld().getHost());
+        if (instance != null) {
+            cachedSceneGroupsInstances.putIfAbsent(groupId, instance);
+            return cachedSceneGroupsInstances.get(groupId);
+        }
+        this.missingGroupInstances.add(groupId);
+        return null;
+    }
+
+    /**
+     * Loads the saved instances of all groups of this scene in one query.
+     * Groups without a saved instance are remembered, so they are not looked up again.
+     */
+    private synchronized void prefetchGroupInstances() {
+        if (this.groupInstancesPrefetched || this.meta == null) return;
+
+        val groupIds = this.meta.getGroups().keySet();
+        DatabaseHelper.loadGroupInstances(groupIds, scene.getWorld().getHost())
+            .forEach(instance -> cachedSceneGroupsInstances.putIfAbsent(instance.getGroupId(), instance));
+        groupIds.stream().filter(id -> !cachedSceneGroupsInstances.containsKey(id)).forEach(this.missingGroupInstances::add);
+        this.groupInstancesPrefetched = true;
     }
 
     private static void addEntityGridPosToMap(List<Map<GridPosition, Set<Integer>>> groupPositions, Set<VisionLevelType> visionLevels, SceneObject sceneObject, SceneGroupInfo group){
@@ -544,14 +596,14 @@ public class SceneScriptManager {
             var instance = new SceneGroupInstance(group, getScene().getWorld().getHost());
             this.sceneGroupsInstances.put(groupId, instance);
             this.cachedSceneGroupsInstances.put(groupId, instance);
-            instance.save(); //Save the instance
+            this.missingGroupInstances.remove(groupId); // New instances are saved with the scene's next group save
         }
 
         if (group.getVariables() != null) {
             group.getVariables().forEach(variable -> {
                 val variables = this.getVariables(groupId);
                 if(variables != null && !variables.containsKey(variable.getName()))
-                    variables.put(variable.getName(), variable.getValue());
+                    this.setVariable(groupId, variable.getName(), variable.getValue());
             });
         }
     }
@@ -562,21 +614,28 @@ public class SceneScriptManager {
         this.cachedSceneGroupsInstances.values().stream().filter(i -> Objects.equals(i.getLuaGroup(),group)).forEach(s -> s.setCached(true));
     }
 
-    public void checkRegions() {
+    /**
+     * Updates which entities are inside which region. Entities can only enter or leave a region by moving,
+     * so apart from newly registered regions only the entities that moved since the last check are tested.
+     * @param movedEntities The entities that were added or moved since the last check.
+     */
+    public void checkRegions(Collection<GameEntity> movedEntities) {
         if (this.regions.size() == 0) {
             return;
         }
 
         for (var region : this.regions.values()) {
             val metaRegion = region.getMetaRegion();
-
-            getScene().getEntities().values().stream()
-                .filter(e -> metaRegion.contains(e.getPosition()) && !region.getEntities().contains(e))
-                .forEach(region::addEntity);
-
-            region.getEntities().stream()
-                .filter(e -> !metaRegion.contains(e.getPosition()))
-                .forEach(region::removeEntity);
+            val candidates = this.unscannedRegions.remove(region) ?
+                getScene().getEntities().values() : movedEntities;
+
+            for (val entity : candidates) {
+                if (metaRegion.contains(entity.getPosition())) {
+                    region.addEntity(entity);
+                } else if (region.getEntities().contains(entity)) {
+                    region.removeEntity(entity);
+                }
+            }
 
             // call enter region events for new entities
             region.getNewEntities().forEach(entity -> callRegionEvent(region, EventType.EVENT_ENTER_REGION, entity));
@@ -714,21 +773,34 @@ public class SceneScriptManager {
          * But when callEvent is called in a ScriptLib func, it may cause NPE because the inner call cleans the ThreadLocal so that outer call could not get it.
          * e.g. CallEvent -> set -> ScriptLib.xxx -> CallEvent -> set -> remove -> NPE -> (remove)
          * So we use thread pool to clean the stack to avoid this new issue.
+         * Events of a scene go through the scene's own lane, so they run in order and a busy scene can't starve others.
          */
-        eventExecutor.submit(() -> this.realCallEvent(params));
+        if (!this.eventLane.submit(() -> this.realCallEvent(params))) {
+            logger.warn("Dropped event {} for group {} in scene {}, {} events queued",
+                params.type, params.getGroupId(), this.scene.getId(), this.eventLane.getQueueSize());
+        }
+    }
+
+    public int getEventQueueSize() {
+        return this.eventLane.getQueueSize();
+    }
+
+    public long getDroppedEventCount() {
+        return this.eventLane.getDroppedTasks();
+    }
+
+    /**
+     * @return Total time spent in the condition and action lua functions of the trigger, in nanoseconds.
+     */
+    public long getTriggerLuaNanos(String triggerName) {
+        val time = this.triggerLuaNanos.get(triggerName);
+        return time != null ? time.get() : 0;
     }
 
     private void realCallEvent(@Nonnull ScriptArgs params) {
         try {
-            int eventType = params.type;
-            Set<SceneTrigger> relevantTriggers = this.getTriggersByEvent(eventType).stream()
-                .filter(t -> params.getGroupId() == 0 || t.getGroupId() == params.getGroupId())
-                .filter(t ->  (t.getSource().isEmpty() || t.getSource().equals(params.getEventSource())))
-                .collect(Collectors.toSet());
-
-            for (SceneTrigger trigger : relevantTriggers) {
-                handleEventForTrigger(params, trigger);
-            }
+            this.currentTriggers.forEachMatching(params.type, params.getGroupId(), params.getEventSource(),
+                params, this.triggerDispatcher);
         } catch (Throwable throwable){
             logger.error("Condition Trigger {} triggered exception", params.type, throwable);
         }
@@ -736,6 +808,7 @@ public class SceneScriptManager {
 
     private boolean handleEventForTrigger(ScriptArgs params, SceneTrigger trigger ){
         logger.debug("checking trigger {} for event {}", trigger.getName(), params.type);
+        val start = System.nanoTime();
         try {
             val group = trigger.getSceneMeta().getGroup(trigger.getGroupId());
             if (evaluateTriggerCondition(trigger, group, params)) {
@@ -750,6 +823,16 @@ public class SceneScriptManager {
         catch (Throwable ex){
             logger.error("Condition Trigger {} triggered exception", trigger.getName(), ex);
             return false;
+        } finally {
+            val elapsed = System.nanoTime() - start;
+            val time = this.triggerLuaNanos.get(trigger.getName());
+            if (time != null) {
+                time.addAndGet(elapsed);
+            }
+            if (elapsed > SLOW_TRIGGER_NANOS) {
+                logger.debug("Trigger {} of group {} took {} ms", trigger.getName(), trigger.getGroupId(),
+                    TimeUnit.NANOSECONDS.toMillis(elapsed));
+            }
         }
     }
 
@@ -845,12 +928,8 @@ public class SceneScriptManager {
 
     public EntityGadget createGadget(int groupId, int blockId, SceneGadget g, int state) {
         if (g.isOneOff()) {
-            var hasEntity = getScene().getEntities().values().stream()
-                .filter(e -> e instanceof EntityGadget)
-                .filter(e -> e.getGroupId() == g.getGroupId())
-                .filter(e -> e.getConfigId() == g.getConfigId())
-                .findFirst();
-            if (hasEntity.isPresent()) {
+            var hasEntity = getScene().getEntityByConfigId(g.getConfigId(), g.getGroupId());
+            if (hasEntity instanceof EntityGadget) {
                 return null;
             }
         }
@@ -935,9 +1014,8 @@ public class SceneScriptManager {
         var configSet = suite.getSceneMonsters().stream()
                 .map(SceneObject::getConfigId)
                 .collect(Collectors.toSet());
-        var toRemove = getScene().getEntities().values().stream()
+        var toRemove = getScene().getEntitiesInGroup(group.getGroupInfo().getId()).stream()
                 .filter(e -> e instanceof EntityMonster)
-                .filter(e -> e.getGroupId() == group.getGroupInfo().getId())
                 .filter(e -> configSet.contains(e.getConfigId()))
                 .toList();
 
@@ -947,9 +1025,8 @@ public class SceneScriptManager {
         var configSet = suite.getSceneGadgets().stream()
                 .map(SceneObject::getConfigId)
                 .collect(Collectors.toSet());
-        var toRemove = getScene().getEntities().values().stream()
+        var toRemove = getScene().getEntitiesInGroup(group.getGroupInfo().getId()).stream()
                 .filter(e -> e instanceof EntityGadget)
-                .filter(e -> e.getGroupId() == group.getGroupInfo().getId())
                 .filter(e -> configSet.contains(e.getConfigId()))
                 .toList();
 
@@ -960,9 +1037,8 @@ public class SceneScriptManager {
         var configSet = suite.getSceneMonsters().stream()
                 .map(SceneObject::getConfigId)
                 .collect(Collectors.toSet());
-        var toRemove = getScene().getEntities().values().stream()
+        var toRemove = getScene().getEntitiesInGroup(group.getGroupInfo().getId()).stream()
                 .filter(e -> e instanceof EntityMonster)
-                .filter(e -> e.getGroupId() == group.getGroupInfo().getId())
                 .filter(e -> configSet.contains(e.getConfigId()))
                 .toList();
 
@@ -972,9 +1048,8 @@ public class SceneScriptManager {
         var configSet = suite.getSceneGadgets().stream()
                 .map(SceneObject::getConfigId)
                 .collect(Collectors.toSet());
-        var toRemove = getScene().getEntities().values().stream()
+        var toRemove = getScene().getEntitiesInGroup(group.getGroupInfo().getId()).stream()
                 .filter(e -> e instanceof EntityGadget)
-                .filter(e -> e.getGroupId() == group.getGroupInfo().getId())
                 .filter(e -> configSet.contains(e.getConfigId()))
                 .toList();
 
@@ -991,9 +1066,10 @@ public class SceneScriptManager {
         logger.info("creating group timer event for group {} with source {} and time {}",
             groupID, source, time);
         cancelGroupTimerEvent(groupID, source);
-        var taskIdentifier = Grasscutter.getGameServer().getScheduler().scheduleDelayedRepeatingTask(() ->
+        // Only fires once, scripts create the timer again if they need it to repeat
+        var taskIdentifier = Grasscutter.getGameServer().getScheduler().scheduleDelayedTaskMillis(() ->
             callEvent(new ScriptArgs(groupID, EVENT_TIMER_EVENT)
-                .setEventSource(source)), (int)time, (int)time);
+                .setEventSource(source)), (long) (time * 1000));
         var groupTasks = activeGroupTimers.computeIfAbsent(groupID, k -> new HashSet<>());
         groupTasks.add(new Pair<>(source, taskIdentifier));
         return 0;
@@ -0,0 +1,178 @@
+package emu.grasscutter.scripts;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import org.anime_game_servers.gi_lua.models.scene.group.SceneTrigger;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * The currently registered triggers of a scene, indexed by event type, group id and event source.
+ * Dispatching an event is a couple of map lookups over immutable snapshots, so it neither allocates
+ * nor sees triggers that get (de)registered by the trigger actions of the same event.
+ * Registering copies the affected part of the index, which is fine since it happens far less often.
+ */
+public class SceneTriggerIndex {
+    private static final SceneTrigger[] NO_TRIGGERS = new SceneTrigger[0];
+
+    private volatile Int2ObjectMap<EventTriggers> events = new Int2ObjectOpenHashMap<>();
+
+    /**
+     * @return False if the trigger was already registered.
+     */
+    public synchronized boolean add(SceneTrigger trigger) {
+        EventTriggers old = this.events.get(trigger.getEvent());
+        GroupTriggers group = old != null ? old.byGroup.get(trigger.getGroupId()) : null;
+        if (group != null && group.contains(trigger)) return false;
+
+        GroupTriggers updated = (group != null ? group : GroupTriggers.EMPTY).with(trigger);
+        this.putEvent(trigger.getEvent(), (old != null ? old : EventTriggers.EMPTY).with(trigger.getGroupId(), updated));
+        return true;
+    }
+
+    public synchronized void remove(SceneTrigger trigger) {
+        EventTriggers old = this.events.get(trigger.getEvent());
+        GroupTriggers group = old != null ? old.byGroup.get(trigger.getGroupId()) : null;
+        if (group == null || !group.contains(trigger)) return;
+
+        this.putEvent(trigger.getEvent(), old.with(trigger.getGroupId(), group.without(trigger)));
+    }
+
+    public synchronized void removeEvent(int eventType) {
+        Int2ObjectMap<EventTriggers> updated = new Int2ObjectOpenHashMap<>(this.events);
+        updated.remove(eventType);
+        this.events = updated;
+    }
+
+    /**
+     * @return The amount of event types that have triggers registered.
+     */
+    public int getEventCount() {
+        return this.events.size();
+    }
+
+    /**
+     * Calls the consumer for every trigger listening to the event.
+     * @param groupId The group the event is for, 0 for all groups.
+     * @param source The event source, triggers without a source match any.
+     */
+    public <A> void forEachMatching(int eventType, int groupId, String source, A argument, BiConsumer<SceneTrigger, A> consumer) {
+        EventTriggers triggers = this.events.get(eventType);
+        if (triggers == null) return;
+
+        if (groupId != 0) {
+            GroupTriggers group = triggers.byGroup.get(groupId);
+            if (group != null) {
+                group.forEachMatching(source, argument, consumer);
+            }
+            return;
+        }
+
+        for (GroupTriggers group : triggers.groups) {
+            group.forEachMatching(source, argument, consumer);
+        }
+    }
+
+    private void putEvent(int eventType, EventTriggers triggers) {
+        Int2ObjectMap<EventTriggers> updated = new Int2ObjectOpenHashMap<>(this.events);
+        if (triggers.groups.length == 0) {
+            updated.remove(eventType);
+        } else {
+            updated.put(eventType, triggers);
+        }
+        this.events = updated;
+    }
+
+    private static final class EventTriggers {
+        private static final EventTriggers EMPTY = new EventTriggers(new Int2ObjectOpenHashMap<>());
+
+        private final Int2ObjectMap<GroupTriggers> byGroup;
+        private final GroupTriggers[] groups;
+
+        private EventTriggers(Int2ObjectMap<GroupTriggers> byGroup) {
+            this.byGroup = byGroup;
+            this.groups = byGroup.values().toArray(new GroupTriggers[0]);
+        }
+
+        private EventTriggers with(int groupId, GroupTriggers group) {
+            Int2ObjectMap<GroupTriggers> updated = new Int2ObjectOpenHashMap<>(this.byGroup);
+            if (group.isEmpty()) {
+                updated.remove(groupId);
+            } else {
+                updated.put(groupId, group);
+            }
+            return new EventTriggers(updated);
+        }
+    }
+
+    private static final class GroupTriggers {
+        private static final GroupTriggers EMPTY = new GroupTriggers(NO_TRIGGERS, Map.of());
+
+        // Triggers without a source, they match every event source
+        private final SceneTrigger[] anySource;
+        private final Map<String, SceneTrigger[]> bySource;
+
+        private GroupTriggers(SceneTrigger[] anySource, Map<String, SceneTrigger[]> bySource) {
+            this.anySource = anySource;
+            this.bySource = bySource;
+        }
+
+        private boolean isEmpty() {
+            return this.anySource.length == 0 && this.bySource.isEmpty();
+        }
+
+        private boolean contains(SceneTrigger trigger) {
+            SceneTrigger[] triggers = this.getTriggers(trigger.getSource());
+            return Arrays.asList(triggers).contains(trigger);
+        }
+
+        private SceneTrigger[] getTriggers(String source) {
+            if (source == null || source.isEmpty()) return this.anySource;
+            return this.bySource.getOrDefault(source, NO_TRIGGERS);
+        }
+
+        private <A> void forEachMatching(String source, A argument, BiConsumer<SceneTrigger, A> consumer) {
+            for (SceneTrigger trigger : this.anySource) {
+                consumer.accept(trigger, argument);
+            }
+            if (source == null || source.isEmpty()) return;
+
+            SceneTrigger[] triggers = this.bySource.get(source);
+            if (triggers == null) return;
+            for (SceneTrigger trigger : triggers) {
+                consumer.accept(trigger, argument);
+            }
+        }
+
+        private GroupTriggers with(SceneTrigger trigger) {
+            SceneTrigger[] current = this.getTriggers(trigger.getSource());
+            SceneTrigger[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = trigger;
+            return this.replace(trigger.getSource(), updated);
+        }
+
+        private GroupTriggers without(SceneTrigger trigger) {
+            SceneTrigger[] updated = Arrays.stream(this.getTriggers(trigger.getSource()))
+                .filter(t -> !t.equals(trigger))
+                .toArray(SceneTrigger[]::new);
+            return this.replace(trigger.getSource(), updated);
+        }
+
+        private GroupTriggers replace(String source, SceneTrigger[] triggers) {
+            if (source == null || source.isEmpty()) {
+                return new GroupTriggers(triggers, this.bySource);
+            }
+
+            Map<String, SceneTrigger[]> updated = new HashMap<>(this.bySource);
+            if (triggers.length == 0) {
+                updated.remove(source);
+            } else {
+                updated.put(source, triggers);
+            }
+            return new GroupTriggers(this.anySource, updated);
+        }
+    }
+}
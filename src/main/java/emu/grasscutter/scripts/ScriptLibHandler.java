@@ -163,7 +163,7 @@ public class ScriptLibHandler extends BaseHandler implements org.anime_game_serv
         worktop.addWorktopOptions(worktopOptions);
         Grasscutter.getGameServer().getScheduler().scheduleDelayedTask(() -> {
             scene.broadcastPacket(new PacketWorktopOptionNotify(gadget));
-        },1);
+        }, 1, scene.getWorld().getLogicLoop());
         return 0;
     }
 
@@ -212,7 +212,7 @@ public class ScriptLibHandler extends BaseHandler implements org.anime_game_serv
 
         Grasscutter.getGameServer().getScheduler().scheduleDelayedTask(() -> {
             scene.broadcastPacket(new PacketWorktopOptionNotify(gadget));
-        },1);
+        }, 1, scene.getWorld().getLogicLoop());
 
         return 0;
     }
@@ -257,7 +257,7 @@ public class ScriptLibHandler extends BaseHandler implements org.anime_game_serv
 			this.getSceneScriptManager().removeGroupSuite(group, suiteItem);
 		}*/
         if(groupInstance.getActiveSuiteId() == 0 || groupInstance.getActiveSuiteId() != suite) {
-            groupInstance.getDeadEntities().clear();
+            groupInstance.clearDeadEntities();
             scriptManager.addGroupSuite(groupInstance, suiteData);
             groupInstance.setActiveSuiteId(suite);
         }
@@ -426,8 +426,8 @@ public class ScriptLibHandler extends BaseHandler implements org.anime_game_serv
         logger.debug("[LUA] Call GetGroupMonsterCountByGroupId with {}",
             groupId);
         val actualGroupId = getGroupIdOrCurrentId(context, groupId);
-        return (int) context.getSceneScriptManager().getScene().getEntities().values().stream()
-            .filter(e -> e instanceof EntityMonster && e.getGroupId() == actualGroupId)
+        return (int) context.getSceneScriptManager().getScene().getEntitiesInGroup(actualGroupId).stream()
+            .filter(e -> e instanceof EntityMonster)
             .count();
     }
 
@@ -464,7 +464,7 @@ public class ScriptLibHandler extends BaseHandler implements org.anime_game_serv
 
         val old = variables.getOrDefault(varName, value);
         val newValue = isSet ? value : old + value;
-        variables.put(varName, newValue);
+        sceneScriptManager.setVariable(groupId, varName, newValue);
         sceneScriptManager.callEvent(
             new ScriptArgs(groupId, EventType.EVENT_VARIABLE_CHANGE, newValue, old)
                 .setEventSource(varName)
@@ -580,9 +580,8 @@ public class ScriptLibHandler extends BaseHandler implements org.anime_game_serv
         logger.debug("[LUA] Call GetGroupMonsterCount ");
 
         val groupId = context.getCurrentGroup().getGroupInfo().getId();
-        return (int) context.getSceneScriptManager().getScene().getEntities().values().stream()
-            .filter(e -> e instanceof EntityMonster &&
-                e.getGroupId() == groupId)
+        return (int) context.getSceneScriptManager().getScene().getEntitiesInGroup(groupId).stream()
+            .filter(e -> e instanceof EntityMonster)
             .count();
     }
 
@@ -727,8 +726,8 @@ public class ScriptLibHandler extends BaseHandler implements org.anime_game_serv
             printTable(table));
         val actualGroupId = getGroupIdOrCurrentId(context, table.getInt("group_id"));
 
-        var count = context.getSceneScriptManager().getScene().getEntities().values().stream()
-            .filter(g -> g instanceof EntityGadget entityGadget && entityGadget.getGroupId() == actualGroupId)
+        var count = context.getSceneScriptManager().getScene().getEntitiesInGroup(actualGroupId).stream()
+            .filter(g -> g instanceof EntityGadget)
             .count();
         return (int)count;
     }
@@ -1035,8 +1034,8 @@ public class ScriptLibHandler extends BaseHandler implements org.anime_game_serv
         val actualGroupId = getGroupIdOrCurrentId(context, groupId);
         val result = blossomManager.setBlossomState(actualGroupId, state);
         if (result && state == 1) { // there should only be one gadget of this blossom at this point, which is the operator
-            context.getSceneScriptManager().getScene().getEntities().values().stream()
-                .filter(entity -> entity.getGroupId() == actualGroupId).filter(EntityGadget.class::isInstance)
+            context.getSceneScriptManager().getScene().getEntitiesInGroup(actualGroupId).stream()
+                .filter(EntityGadget.class::isInstance)
                 .map(EntityGadget.class::cast).findFirst().ifPresent(gadget -> gadget.updateState(ScriptGadgetState.GearAction2));
         }
         return result ? 0 : 1;
@@ -2,7 +2,10 @@ package emu.grasscutter.server.game;
 
 import emu.grasscutter.GameConstants;
 import emu.grasscutter.Grasscutter;
+import emu.grasscutter.auth.SdkTokenVerifier;
+import emu.grasscutter.data.DataFileWatcher;
 import emu.grasscutter.database.DatabaseHelper;
+import emu.grasscutter.database.DatabaseManager;
 import emu.grasscutter.game.Account;
 import emu.grasscutter.game.battlepass.BattlePassSystem;
 import emu.grasscutter.game.chat.ChatSystem;
@@ -31,6 +34,7 @@ import emu.grasscutter.server.event.types.ServerEvent;
 import emu.grasscutter.server.event.game.ServerTickEvent;
 import emu.grasscutter.server.event.internal.ServerStartEvent;
 import emu.grasscutter.server.event.internal.ServerStopEvent;
+import emu.grasscutter.server.scheduler.GameTimerService;
 import emu.grasscutter.server.scheduler.ServerTaskScheduler;
 import emu.grasscutter.task.TaskMap;
 import kcp.highway.ChannelConfig;
@@ -38,6 +42,7 @@ import kcp.highway.KcpServer;
 import lombok.Getter;
 import org.anime_game_servers.multi_proto.gi.messages.community.player_presentation.SocialDetail;
 
+import javax.annotation.Nullable;
 import java.net.InetSocketAddress;
 import java.time.Instant;
 import java.time.OffsetDateTime;
@@ -73,6 +78,9 @@ public final class GameServer extends KcpServer {
 
     // Extra
     private final ServerTaskScheduler scheduler;
+    private final GameTimerService timerService;
+    @Nullable private final SdkTokenVerifier sdkTokenVerifier;
+    private final DataFileWatcher dataFileWatcher;
     private final TaskMap taskMap;
 
     private ChatSystemHandler chatManager;
@@ -107,6 +115,9 @@ public final class GameServer extends KcpServer {
 
         // Extra
         this.scheduler = new ServerTaskScheduler();
+        this.timerService = new GameTimerService();
+        this.sdkTokenVerifier = ACCOUNT.sdkServer != null && !ACCOUNT.sdkServer.isBlank()
+            ? new SdkTokenVerifier(ACCOUNT.sdkServer, ACCOUNT.sdkServerTimeout, ACCOUNT.sdkTokenCacheSeconds) : null;
         this.taskMap = new TaskMap(true);
 
         // Create game systems
@@ -128,6 +139,13 @@ public final class GameServer extends KcpServer {
         // Chata manager
         this.chatManager = new ChatSystem(this);
 
+        // Data file reloading
+        this.dataFileWatcher = new DataFileWatcher();
+        this.dataFileWatcher.subscribe("banners", this.gachaSystem::load, "Banners");
+        this.dataFileWatcher.subscribe("shops", this.shopSystem::load, "Shop.json", "ShopChest.v2.json");
+        this.dataFileWatcher.subscribe("drops", this.dropSystem::load, "Drop.json");
+        this.dataFileWatcher.subscribe("announcements", this.announcementSystem::refresh, "Announcement.json");
+
         // Hook into shutdown event.
         Runtime.getRuntime().addShutdownHook(new Thread(this::onServerShutdown));
     }
@@ -219,14 +237,15 @@ public final class GameServer extends KcpServer {
     public synchronized void onTick() {
         var tickStart = Instant.now();
 
-        // Tick worlds.
-        this.worlds.removeIf(World::onTick);
-
-        // Tick players.
-        this.players.values().forEach(Player::onTick);
+        // Tick worlds on their logic loops, only the iteration happens on the timer.
+        this.worlds.removeIf(world -> {
+            if (world.getPlayerCount() == 0) return true;
+            world.getLogicLoop().execute(world::onTick);
+            return false;
+        });
 
-        // Tick scheduler.
-        this.getScheduler().runTasks();
+        // Tick players on the loop of their session.
+        this.players.values().forEach(player -> player.getSession().execute(player::onTick));
 
         // Call server tick event.
         ServerTickEvent event = new ServerTickEvent(tickStart, Instant.now());
@@ -257,6 +276,14 @@ public final class GameServer extends KcpServer {
     }
 
     public void start() {
+        // Start running scheduled tasks.
+        this.scheduler.start();
+
+        // Reload data files when they change.
+        if (GAME_OPTIONS.watchDataFiles || GAME_OPTIONS.watchGachaConfig) {
+            this.dataFileWatcher.start();
+        }
+
         // Schedule game loop.
         Timer gameLoop = new Timer();
         gameLoop.scheduleAtFixedRate(new TimerTask() {
@@ -286,6 +313,13 @@ public final class GameServer extends KcpServer {
             player.getSession().close();
         }
 
+        this.timerService.shutdown();
+        this.scheduler.shutdown();
+        this.dataFileWatcher.shutdown();
+        if (this.sdkTokenVerifier != null) {
+            this.sdkTokenVerifier.shutdown();
+        }
         getWorlds().forEach(World::save);
+        DatabaseManager.getWriteQueue().shutdown();
     }
 }
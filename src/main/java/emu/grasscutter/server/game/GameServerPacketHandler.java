@@ -5,6 +5,7 @@ import static emu.grasscutter.config.Configuration.*;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import emu.grasscutter.net.packet.*;
 import emu.grasscutter.server.event.game.ReceivePacketEvent;
@@ -14,6 +15,8 @@ import emu.grasscutter.Grasscutter.ServerDebugMode;
 import emu.grasscutter.server.game.GameSession.SessionState;
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import org.anime_game_servers.core.base.Version;
+import org.anime_game_servers.multi_proto.core.interfaces.PacketIdProvider;
 
 import javax.annotation.Nullable;
 
@@ -21,10 +24,13 @@ import javax.annotation.Nullable;
 public class GameServerPacketHandler {
     private final Int2ObjectMap<PacketHandler> handlers;
     private final Map<String, PacketHandler> versionHandlers;
+    // Opcode -> handler tables per protocol version, built on first use
+    private final Map<Version, Int2ObjectMap<HandlerEntry>> dispatchTables;
 
     public GameServerPacketHandler(Class<? extends PacketHandler> handlerClass) {
         this.handlers = new Int2ObjectOpenHashMap<>();
         this.versionHandlers = new HashMap<>();
+        this.dispatchTables = new ConcurrentHashMap<>();
 
         this.registerHandlers(handlerClass);
     }
@@ -40,6 +46,7 @@ public class GameServerPacketHandler {
             PacketHandler packetHandler = handlerClass.getDeclaredConstructor().newInstance();
 
             this.handlers.put(opcode.value(), packetHandler);
+            this.dispatchTables.clear();
         } catch (Exception e) {
             Grasscutter.getLogger().warn("exception while registering packet handler: {}", handlerClass.getName(), e);
         }
@@ -53,6 +60,7 @@ public class GameServerPacketHandler {
             PacketHandler packetHandler = handlerClass.getDeclaredConstructor().newInstance();
 
             this.versionHandlers.put(modelClass.getSimpleName(), packetHandler);
+            this.dispatchTables.clear();
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -73,49 +81,53 @@ public class GameServerPacketHandler {
         Grasscutter.getLogger().debug("Registered {} version handlers and {} legacy handlers for {}", this.versionHandlers.size(), this.handlers.size(), handlerClass.getSimpleName() + "s");
     }
 
-    @Nullable
-    private PacketHandler getHandler(String packageName, int opcode) {
-        PacketHandler handler = this.versionHandlers.get(packageName);
-        return handler!= null ? handler : this.handlers.get(opcode);
+    private Int2ObjectMap<HandlerEntry> getDispatchTable(GameSession session) {
+        return this.dispatchTables.computeIfAbsent(session.getVersion(), v -> this.buildDispatchTable(session.getPackageIdProvider()));
+    }
+
+    private Int2ObjectMap<HandlerEntry> buildDispatchTable(PacketIdProvider provider) {
+        Int2ObjectMap<HandlerEntry> table = new Int2ObjectOpenHashMap<>();
+
+        // Version handlers take priority over legacy handlers with the same opcode
+        for (Int2ObjectMap.Entry<PacketHandler> legacy : this.handlers.int2ObjectEntrySet()) {
+            int opcode = legacy.getIntKey();
+            table.put(opcode, HandlerEntry.of(provider.getPacketName(opcode), legacy.getValue()));
+        }
+        this.versionHandlers.forEach((name, handler) -> {
+            int opcode = provider.getPacketId(name);
+            if (opcode > 0) {
+                table.put(opcode, HandlerEntry.of(name, handler));
+            }
+        });
+
+        return table;
     }
 
     public void handle(GameSession session, int opcode, byte[] header, byte[] payload) {
-        String packageName = session.getPackageIdProvider().getPacketName(opcode);
-        PacketHandler handler = getHandler(packageName, opcode);
+        HandlerEntry entry = this.getDispatchTable(session).get(opcode);
 
-        if (handler != null) {
+        if (entry != null) {
             try {
                 // Make sure session is ready for packets
                 SessionState state = session.getState();
+                SessionState requiredState = entry.requiredState();
 
-                if ("PingReq".equals(packageName)) {
-                    // Always continue if packet is ping request
-                } else if ("GetPlayerTokenReq".equals(packageName)) {
-                    if (state != SessionState.WAITING_FOR_TOKEN) {
-                        return;
+                if (requiredState != null && state != requiredState) {
+                    if (state == SessionState.ACCOUNT_BANNED && entry.closeIfBanned()) {
+                        session.close();
                     }
-                } else if (state == SessionState.ACCOUNT_BANNED) {
-                    session.close();
                     return;
-                } else if ("PlayerLoginReq".equals(packageName)) {
-                    if (state != SessionState.WAITING_FOR_LOGIN) {
-                        return;
-                    }
-                } else if ("SetPlayerBornDataReq".equals(packageName)) {
-                    if (state != SessionState.PICKING_CHARACTER) {
-                        return;
-                    }
-                } else {
-                    if (state != SessionState.ACTIVE) {
-                        return;
-                    }
                 }
 
-                // Invoke event.
-                ReceivePacketEvent event = new ReceivePacketEvent(session, opcode, payload);
-                event.call();
-                if (!event.isCanceled()) // If event is not canceled, continue.
-                    handler.handle(session, header, event.getPacketData());
+                // Invoke event, if anyone listens to it.
+                if (Grasscutter.getPluginManager().hasListeners(ReceivePacketEvent.class)) {
+                    ReceivePacketEvent event = new ReceivePacketEvent(session, opcode, payload);
+                    event.call();
+                    if (event.isCanceled()) // If event is canceled, drop the packet.
+                        return;
+                    payload = event.getPacketData();
+                }
+                entry.handler().handle(session, header, payload);
             } catch (Exception ex) {
                 // TODO Remove this when no more needed
                 ex.printStackTrace();
@@ -128,4 +140,23 @@ public class GameServerPacketHandler {
             Grasscutter.getLogger().warn("Unhandled packet (" + opcode + "): " + PacketOpcodesUtils.getOpcodeName(opcode, session));
         }
     }
+
+    /**
+     * @param requiredState The state the session has to be in, null if the packet is always accepted.
+     * @param closeIfBanned Whether a banned session sending this packet gets disconnected.
+     */
+    private record HandlerEntry(PacketHandler handler, @Nullable SessionState requiredState, boolean closeIfBanned) {
+        static HandlerEntry of(@Nullable String packetName, PacketHandler handler) {
+            if (packetName == null) {
+                return new HandlerEntry(handler, SessionState.ACTIVE, true);
+            }
+            return switch (packetName) {
+                case "PingReq" -> new HandlerEntry(handler, null, false);
+                case "GetPlayerTokenReq" -> new HandlerEntry(handler, SessionState.WAITING_FOR_TOKEN, false);
+                case "PlayerLoginReq" -> new HandlerEntry(handler, SessionState.WAITING_FOR_LOGIN, true);
+                case "SetPlayerBornDataReq" -> new HandlerEntry(handler, SessionState.PICKING_CHARACTER, true);
+                default -> new HandlerEntry(handler, SessionState.ACTIVE, true);
+            };
+        }
+    }
 }
@@ -3,30 +3,35 @@ package emu.grasscutter.server.game;
 import java.io.File;
 import java.net.InetSocketAddress;
 import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import emu.grasscutter.Grasscutter;
 import emu.grasscutter.Grasscutter.ServerDebugMode;
 import emu.grasscutter.game.Account;
 import emu.grasscutter.game.player.Player;
+import emu.grasscutter.game.world.World;
 import emu.grasscutter.net.packet.BasePacket;
+import emu.grasscutter.net.packet.PacketOpcodeTable;
 import emu.grasscutter.net.packet.PacketOpcodesUtils;
 import emu.grasscutter.server.event.game.SendPacketEvent;
+import emu.grasscutter.server.game.LogicEventLoopGroup.LogicEventLoop;
 import emu.grasscutter.utils.Crypto;
 import emu.grasscutter.utils.FileUtils;
 import emu.grasscutter.utils.Utils;
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
+import io.netty.buffer.PooledByteBufAllocator;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.val;
 import org.anime_game_servers.core.base.Version;
 import org.anime_game_servers.multi_proto.core.interfaces.PacketIdProvider;
-import org.anime_game_servers.multi_proto.gi.packet_id.PacketIds;
 
 import static emu.grasscutter.config.Configuration.*;
 import static emu.grasscutter.utils.Language.translate;
 
 public class GameSession implements GameSessionManager.KcpChannel {
+    private static final byte[] EMPTY_BYTES = new byte[0];
+
     private final GameServer server;
     private GameSessionManager.KcpTunnel tunnel;
 
@@ -42,12 +47,22 @@ public class GameSession implements GameSessionManager.KcpChannel {
     @Getter private long lastPingTime;
     private int lastClientSeq = 10;
     @Getter private Version version = Version.GI_3_2_0; // TODO actually get the version from the client
-    @Getter private PacketIdProvider packageIdProvider = PacketIds.getMapper(version);
+    @Getter private PacketOpcodeTable opcodeTable = PacketOpcodeTable.get(version);
+    @Getter private PacketIdProvider packageIdProvider = opcodeTable.getProvider();
+
+    // Logic loop this session runs on while it is not in a world
+    @Getter private final LogicEventLoop homeLoop;
+    // Guarded by executeLock
+    private LogicEventLoop currentLoop;
+    private final AtomicInteger queuedTasks = new AtomicInteger();
+    private final Object executeLock = new Object();
 
     public GameSession(GameServer server) {
         this.server = server;
         this.state = SessionState.WAITING_FOR_TOKEN;
         this.lastPingTime = System.currentTimeMillis();
+        this.homeLoop = GameSessionManager.getLogicLoops().next();
+        this.currentLoop = this.homeLoop;
     }
 
     public GameServer getServer() {
@@ -81,6 +96,35 @@ public class GameSession implements GameSessionManager.KcpChannel {
         this.lastPingTime = System.currentTimeMillis();
     }
 
+    /**
+     * Runs a task on the logic loop of the world this session is in, or on the session's own loop
+     * if it is not in a world. Tasks of a session always run in the order they were submitted,
+     * the session only moves to another loop once everything queued on the previous one has run.
+     */
+    public void execute(Runnable task) {
+        // Tasks come from the KCP thread, timers and other loops, so picking the loop and queueing on it
+        // happen together. Otherwise a submitter could still queue on the old loop after another one moved on.
+        synchronized (this.executeLock) {
+            if (this.queuedTasks.getAndIncrement() == 0) {
+                this.currentLoop = this.getTargetLoop();
+            }
+
+            this.currentLoop.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    this.queuedTasks.decrementAndGet();
+                }
+            });
+        }
+    }
+
+    private LogicEventLoop getTargetLoop() {
+        Player player = this.getPlayer();
+        World world = player != null ? player.getWorld() : null;
+        return world != null ? world.getLogicLoop() : this.homeLoop;
+    }
+
     public int getNextClientSequence() {
         return ++lastClientSeq;
     }
@@ -106,15 +150,17 @@ public class GameSession implements GameSessionManager.KcpChannel {
     }
 
     public void send(BasePacket packet) {
+        int opcode = packet.getOpcode(this);
+
         // Test
-        if (packet.getOpcode(this) <= 0) {
+        if (opcode <= 0) {
             Grasscutter.getLogger().warn("Tried to send packet with missing cmd id!");
             return;
         }
 
         // DO NOT REMOVE (unless we find a way to validate code before sending to client which I don't think we can)
         // Stop WindSeedClientNotify from being sent for security purposes.
-        if (PacketOpcodesUtils.BANNED_PACKETS.contains(packet.getOpcode(this))) {
+        if (this.opcodeTable.isBanned(opcode)) {
             return;
         }
 
@@ -124,32 +170,42 @@ public class GameSession implements GameSessionManager.KcpChannel {
         }
 
         // Log
-        val paketName = PacketOpcodesUtils.getOpcodeName(packet.getOpcode(this), this);
-        switch (GAME_INFO.logPackets) {
-            case ALL -> {
-                if (!PacketOpcodesUtils.LOOP_PACKETS.contains(paketName) || GAME_INFO.isShowLoopPackets) {
-                    logPacket("SEND", packet.getOpcode(this), packet.getData(version));
+        if (GAME_INFO.logPackets != ServerDebugMode.NONE) {
+            val paketName = PacketOpcodesUtils.getOpcodeName(opcode, this);
+            switch (GAME_INFO.logPackets) {
+                case ALL -> {
+                    if (!PacketOpcodesUtils.LOOP_PACKETS.contains(paketName) || GAME_INFO.isShowLoopPackets) {
+                        logPacket("SEND", opcode, packet.getEncodedData(version));
+                    }
                 }
-            }
-            case WHITELIST -> {
-                if (SERVER.debugWhitelist.contains(paketName)) {
-                    logPacket("SEND", packet.getOpcode(this), packet.getData(version));
+                case WHITELIST -> {
+                    if (SERVER.debugWhitelist.contains(paketName)) {
+                        logPacket("SEND", opcode, packet.getEncodedData(version));
+                    }
                 }
-            }
-            case BLACKLIST -> {
-                if (!SERVER.debugBlacklist.contains(paketName)) {
-                    logPacket("SEND", packet.getOpcode(this), packet.getData(version));
+                case BLACKLIST -> {
+                    if (!SERVER.debugBlacklist.contains(paketName)) {
+                        logPacket("SEND", opcode, packet.getEncodedData(version));
+                    }
+                }
+                default -> {
                 }
-            }
-            default -> {
             }
         }
 
-        // Invoke event.
-        SendPacketEvent event = new SendPacketEvent(this, packet);
-        event.call();
-        if (!event.isCanceled()) { // If event is not cancelled, continue.
-            tunnel.writeData(event.getPacket().build(this));
+        // Invoke event, if anyone listens to it.
+        if (Grasscutter.getPluginManager().hasListeners(SendPacketEvent.class)) {
+            SendPacketEvent event = new SendPacketEvent(this, packet);
+            event.call();
+            if (event.isCanceled()) return;
+            packet = event.getPacket();
+        }
+
+        ByteBuf data = packet.encode(this, PooledByteBufAllocator.DEFAULT);
+        try {
+            tunnel.writeData(data);
+        } finally {
+            data.release();
         }
     }
 
@@ -160,10 +216,9 @@ public class GameSession implements GameSessionManager.KcpChannel {
     }
 
     @Override
-    public void handleReceive(byte[] bytes) {
-        // Decrypt and turn back into a packet
-        Crypto.xor(bytes, useSecretKey() ? Crypto.ENCRYPT_KEY : Crypto.DISPATCH_KEY);
-        ByteBuf packet = Unpooled.wrappedBuffer(bytes);
+    public void handleReceive(ByteBuf packet) {
+        // Decrypt in place
+        Crypto.xor(packet, useSecretKey() ? Crypto.ENCRYPT_KEY : Crypto.DISPATCH_KEY);
 
         // Log
         //logPacket(packet);
@@ -187,8 +242,9 @@ public class GameSession implements GameSessionManager.KcpChannel {
                 int opcode = packet.readShort();
                 int headerLength = packet.readShort();
                 int payloadLength = packet.readInt();
-                byte[] header = new byte[headerLength];
-                byte[] payload = new byte[payloadLength];
+                // Handlers take arrays, but there is no need to allocate empty ones
+                byte[] header = headerLength == 0 ? EMPTY_BYTES : new byte[headerLength];
+                byte[] payload = payloadLength == 0 ? EMPTY_BYTES : new byte[payloadLength];
 
                 packet.readBytes(header);
                 packet.readBytes(payload);
@@ -227,19 +283,17 @@ public class GameSession implements GameSessionManager.KcpChannel {
             }
         } catch (Exception e) {
             e.printStackTrace();
-        } finally {
-            //byteBuf.release(); //Needn't
-            packet.release();
         }
     }
 
     @Override
     public void handleClose() {
+        SessionState previousState = getState();
         setState(SessionState.INACTIVE);
         //send disconnection pack in case of reconnection
         Grasscutter.getLogger().info(translate("messages.game.disconnect", this.getAddress().toString()));
-        // Save after disconnecting
-        if (this.isLoggedIn()) {
+        // Save after disconnecting, a player that is still loading has nothing to save
+        if (this.isLoggedIn() && previousState != SessionState.LOADING) {
             Player player = getPlayer();
             // Call logout event.
             player.onLogout();
@@ -263,6 +317,7 @@ public class GameSession implements GameSessionManager.KcpChannel {
     public enum SessionState {
         INACTIVE,
         WAITING_FOR_TOKEN,
+        LOADING,
         WAITING_FOR_LOGIN,
         PICKING_CHARACTER,
         ACTIVE,
@@ -4,16 +4,14 @@ import java.net.InetSocketAddress;
 import java.util.concurrent.ConcurrentHashMap;
 
 import emu.grasscutter.Grasscutter;
-import emu.grasscutter.utils.Crypto;
-import emu.grasscutter.utils.Utils;
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
-import io.netty.channel.DefaultEventLoop;
 import kcp.highway.KcpListener;
 import kcp.highway.Ukcp;
 
+import static emu.grasscutter.config.Configuration.GAME_INFO;
+
 public class GameSessionManager {
-    private static final DefaultEventLoop logicThread = new DefaultEventLoop();
+    private static final LogicEventLoopGroup logicLoops = new LogicEventLoopGroup(GAME_INFO.logicThreads);
     private static final ConcurrentHashMap<Ukcp,GameSession> sessions = new ConcurrentHashMap<>();
     private static final KcpListener listener = new KcpListener(){
         @Override
@@ -43,10 +41,8 @@ public class GameSessionManager {
                 }
 
                 @Override
-                public void writeData(byte[] bytes) {
-                    ByteBuf buf = Unpooled.wrappedBuffer(bytes);
+                public void writeData(ByteBuf buf) {
                     ukcp.write(buf);
-                    buf.release();
                 }
 
                 @Override
@@ -64,15 +60,17 @@ public class GameSessionManager {
 
         @Override
         public void handleReceive(ByteBuf buf, Ukcp kcp) {
-            byte[] byteData = Utils.byteBufToArray(buf);
-            logicThread.execute(() -> {
+            GameSession conversation = sessions.get(kcp);
+            if(conversation==null) {
+                return;
+            }
+            // Kcp releases the buffer once this returns, keep it alive until the logic loop is done with it
+            ByteBuf data = buf.retain();
+            conversation.execute(() -> {
                 try {
-                    GameSession conversation = sessions.get(kcp);
-                    if(conversation!=null) {
-                        conversation.handleReceive(byteData);
-                    }
-                }catch (Exception e){
-                    e.printStackTrace();
+                    conversation.handleReceive(data);
+                } finally {
+                    data.release();
                 }
             });
         }
@@ -84,10 +82,10 @@ public class GameSessionManager {
 
         @Override
         public void handleClose(Ukcp ukcp) {
-            GameSession conversation = sessions.get(ukcp);
+            GameSession conversation = sessions.remove(ukcp);
             if(conversation!=null) {
-                conversation.handleClose();
-                sessions.remove(ukcp);
+                // Run after the packets that are still queued for this session
+                conversation.execute(conversation::handleClose);
             }
         }
     };
@@ -96,15 +94,19 @@ public class GameSessionManager {
         return listener;
     }
 
+    public static LogicEventLoopGroup getLogicLoops() {
+        return logicLoops;
+    }
+
     interface KcpTunnel{
         InetSocketAddress getAddress();
-        void writeData(byte[] bytes);
+        void writeData(ByteBuf buf);
         void close();
         int getSrtt();
     }
     interface KcpChannel{
         void onConnected(KcpTunnel tunnel);
         void handleClose();
-        void handleReceive(byte[] bytes);
+        void handleReceive(ByteBuf buf);
     }
 }
@@ -0,0 +1,111 @@
+package emu.grasscutter.server.game;
+
+import emu.grasscutter.Grasscutter;
+import io.netty.channel.DefaultEventLoop;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.Getter;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed set of single threaded event loops that run game logic.
+ * Every world (and every session that is not in a world yet) is pinned to one loop,
+ * so work of a single world stays ordered while independent worlds run in parallel.
+ */
+public class LogicEventLoopGroup {
+    private final LogicEventLoop[] loops;
+    private final AtomicInteger nextLoop = new AtomicInteger();
+
+    public LogicEventLoopGroup(int size) {
+        if (size <= 0) {
+            size = Runtime.getRuntime().availableProcessors();
+        }
+
+        this.loops = new LogicEventLoop[size];
+        for (int i = 0; i < size; i++) {
+            this.loops[i] = new LogicEventLoop(i);
+        }
+
+        // Report imbalance between the loops periodically.
+        this.loops[0].eventLoop.scheduleAtFixedRate(this::logStatistics, 1, 1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * @return The loop a newly created session or world should be pinned to.
+     */
+    public LogicEventLoop next() {
+        return this.loops[Math.floorMod(this.nextLoop.getAndIncrement(), this.loops.length)];
+    }
+
+    public LogicEventLoop[] getLoops() {
+        return this.loops.clone();
+    }
+
+    public void logStatistics() {
+        if (!Grasscutter.getLogger().isDebugEnabled()) {
+            return;
+        }
+
+        for (LogicEventLoop loop : this.loops) {
+            long busyNanos = loop.getBusyNanos();
+            long busyDelta = busyNanos - loop.lastReportedBusyNanos;
+            loop.lastReportedBusyNanos = busyNanos;
+
+            Grasscutter.getLogger().debug("Logic loop #{}: queue depth {}, {} tasks executed, {} ms busy in the last minute",
+                loop.getIndex(), loop.getQueueDepth(), loop.getExecutedTasks(), TimeUnit.NANOSECONDS.toMillis(busyDelta));
+        }
+    }
+
+    public static final class LogicEventLoop implements Executor {
+        @Getter private final int index;
+        private final DefaultEventLoop eventLoop;
+        private final LongAdder busyNanos = new LongAdder();
+        private final LongAdder executedTasks = new LongAdder();
+        private long lastReportedBusyNanos;
+
+        private LogicEventLoop(int index) {
+            this.index = index;
+            this.eventLoop = new DefaultEventLoop(new DefaultThreadFactory("logic-" + index));
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            this.eventLoop.execute(() -> {
+                long start = System.nanoTime();
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    Grasscutter.getLogger().error("Exception in logic loop #{}", this.index, e);
+                } finally {
+                    this.busyNanos.add(System.nanoTime() - start);
+                    this.executedTasks.increment();
+                }
+            });
+        }
+
+        public boolean inEventLoop() {
+            return this.eventLoop.inEventLoop();
+        }
+
+        /**
+         * @return The amount of tasks waiting to be executed on this loop.
+         */
+        public int getQueueDepth() {
+            return this.eventLoop.pendingTasks();
+        }
+
+        /**
+         * @return The total time this loop spent executing tasks, in nanoseconds.
+         */
+        public long getBusyNanos() {
+            return this.busyNanos.sum();
+        }
+
+        public long getExecutedTasks() {
+            return this.executedTasks.sum();
+        }
+    }
+}
@@ -18,12 +18,12 @@ import org.anime_game_servers.core.base.Version;
 import org.anime_game_servers.multi_proto.gi.messages.login.QueryRegionListHttpRsp;
 import org.anime_game_servers.multi_proto.gi.messages.login.RegionSimpleInfo;
 
+import javax.annotation.Nullable;
 import javax.crypto.Cipher;
 import java.io.ByteArrayOutputStream;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.security.Signature;
-import java.util.regex.Pattern;
 
 import static emu.grasscutter.config.Configuration.*;
 
@@ -32,7 +32,19 @@ import static emu.grasscutter.config.Configuration.*;
  */
 public final class RegionHandler implements Router {
     private static final Map<String, RegionData> regions = new ConcurrentHashMap<>();
-    private static final Map<RegionType, String> regionListResponses = new EnumMap<>(RegionType.class);
+    /* The encoded region lists per region type and client version. */
+    private static final Map<RegionType, Map<Version, String>> regionListResponses = new ConcurrentHashMap<>();
+    /* The newest version each region list could be encoded for, used for unknown client versions. */
+    private static final Map<RegionType, String> latestRegionListResponses = new ConcurrentHashMap<>();
+
+    /* Amount of encrypted and signed region responses kept. */
+    private static final int SIGNED_CACHE_SIZE = 64;
+    /* Encrypting and signing only depends on the region data and the client key, so the result is reused. */
+    private static final Map<SignedRegionKey, QueryCurRegionRspJson> signedResponses = new LinkedHashMap<>(SIGNED_CACHE_SIZE, 0.75f, true) {
+        @Override protected boolean removeEldestEntry(Map.Entry<SignedRegionKey, QueryCurRegionRspJson> eldest) {
+            return this.size() > SIGNED_CACHE_SIZE;
+        }
+    };
 
     public RegionHandler() {
         try { // Read & initialize region data.
@@ -55,6 +67,11 @@ public final class RegionHandler implements Router {
                 + lr(HTTP_INFO.accessAddress, HTTP_INFO.bindAddress) + ":"
                 + lr(HTTP_INFO.accessPort, HTTP_INFO.bindPort);
 
+        // Responses of the previous region data are not valid anymore.
+        synchronized (signedResponses) {
+            signedResponses.clear();
+        }
+
         // Create regions.
         List<RegionSimpleInfo> servers = new ArrayList<>();
         List<String> usedNames = new ArrayList<>(); // List to check for potential naming conflicts.
@@ -120,13 +137,36 @@ public final class RegionHandler implements Router {
      */
     private void setRegionListResponses(RegionType regionType, byte[] customConfig, QueryRegionListHttpRsp baseRegionList) {
         baseRegionList.setClientCustomConfigEncrypted(customConfig);
+        Map<Version, String> responses = new EnumMap<>(Version.class);
         Arrays.stream(Version.values()).forEach(version -> {
             val encoded = baseRegionList.encodeToByteArray(version);
             if (encoded != null) {
-                // todo actually save region specific responses, and not just the newest success
-                regionListResponses.put(regionType, Utils.base64Encode(encoded));
+                val response = Utils.base64Encode(encoded);
+                responses.put(version, response);
+                latestRegionListResponses.put(regionType, response);
             }
         });
+        regionListResponses.put(regionType, responses);
+    }
+
+    /**
+     * Parses the version a client sends, e.g. "OSRELWin3.2.0".
+     * @return The version, or null if it is not known.
+     */
+    @Nullable
+    private static Version parseVersion(@Nullable String versionName) {
+        if (versionName == null) return null;
+
+        String[] versionCode = versionName.replaceAll("[a-zA-Z]", "").split("\\.");
+        if (versionCode.length < 3) return null;
+        try {
+            int versionMajor = Integer.parseInt(versionCode[0]);
+            int versionMinor = Integer.parseInt(versionCode[1]);
+            int versionFix   = Integer.parseInt(versionCode[2]);
+            return Version.fromId(Game.GI, Version.idFromVersion(Game.GI, versionMajor, versionMinor, versionFix));
+        } catch (NumberFormatException ignored) {
+            return null;
+        }
     }
 
     @Override public void applyRoutes(Javalin javalin) {
@@ -144,12 +184,14 @@ public final class RegionHandler implements Router {
 
         // use OS as default fallback
         RegionType targetRegion = RegionType.OS;
+        Version version = null;
 
         // Respond with event result.
         if (ctx.queryParamMap().containsKey(VERSION_KEY) && ctx.queryParamMap().containsKey(PLATFORM_KEY)) {
             String versionName = ctx.queryParam(VERSION_KEY);
             String versionCode = versionName!=null ?  versionName.replaceAll("[/.0-9]*", "") : "";
             String platformName = ctx.queryParam(PLATFORM_KEY);
+            version = parseVersion(versionName);
 
             // Determine the region list to use based on the version and platform.
             if ("CNRELiOS".equals(versionCode) || "CNRELWin".equals(versionCode)
@@ -163,7 +205,8 @@ public final class RegionHandler implements Router {
         }
 
         // Invoke event.
-        QueryAllRegionsEvent event = new QueryAllRegionsEvent(regionListResponses.get(targetRegion));
+        String regionList = version != null ? regionListResponses.getOrDefault(targetRegion, Map.of()).get(version) : null;
+        QueryAllRegionsEvent event = new QueryAllRegionsEvent(regionList != null ? regionList : latestRegionListResponses.get(targetRegion));
         event.call();
         // Respond with event result.
         ctx.result(event.getRegionList());
@@ -181,12 +224,7 @@ public final class RegionHandler implements Router {
         String versionName = ctx.queryParam("version");
         var region = regions.get(regionName);
 
-        String[] versionCode = versionName.replaceAll(Pattern.compile("[a-zA-Z]").pattern(), "").split("\\.");
-        int versionMajor = Integer.parseInt(versionCode[0]);
-        int versionMinor = Integer.parseInt(versionCode[1]);
-        int versionFix   = Integer.parseInt(versionCode[2]);
-        val versionId = Version.idFromVersion(Game.GI, versionMajor, versionMinor, versionFix);
-        val version = Version.fromId(Game.GI, versionId);
+        val version = parseVersion(versionName);
 
         if (version == null){
             Grasscutter.getLogger().error("Client {} request: query_cur_region/{} with invalid version {}", ctx.ip(), regionName, versionName);
@@ -201,7 +239,7 @@ public final class RegionHandler implements Router {
         }
 
 
-        if (versionId > Version.GI_2_7_0.getId()) {
+        if (version.getId() > Version.GI_2_7_0.getId()) {
             try {
                 QueryCurrentRegionEvent event = new QueryCurrentRegionEvent(regionData); event.call();
 
@@ -222,33 +260,19 @@ public final class RegionHandler implements Router {
                 if (key_id == null)
                     throw new Exception("Key ID was not set");
 
-                Cipher cipher = Cipher.getInstance("RSA/ECB/PKCS1Padding");
                 Grasscutter.getLogger().warn("Key id: {}", key_id);
-                cipher.init(Cipher.ENCRYPT_MODE, Crypto.EncryptionKeys.get(Integer.valueOf(key_id)));
-                var regionInfo = Utils.base64Decode(event.getRegionInfo());
-
-                //Encrypt regionInfo in chunks
-                ByteArrayOutputStream encryptedRegionInfoStream = new ByteArrayOutputStream();
-
-                //Thank you so much GH Copilot
-                int chunkSize = 256 - 11;
-                int regionInfoLength = regionInfo.length;
-                int numChunks = (int) Math.ceil(regionInfoLength / (double) chunkSize);
-
-                for (int i = 0; i < numChunks; i++) {
-                    byte[] chunk = Arrays.copyOfRange(regionInfo, i * chunkSize, Math.min((i + 1) * chunkSize, regionInfoLength));
-                    byte[] encryptedChunk = cipher.doFinal(chunk);
-                    encryptedRegionInfoStream.write(encryptedChunk);
+                val cacheKey = new SignedRegionKey(event.getRegionInfo(), Integer.parseInt(key_id));
+                QueryCurRegionRspJson rsp;
+                synchronized (signedResponses) {
+                    rsp = signedResponses.get(cacheKey);
                 }
 
-                Signature privateSignature = Signature.getInstance("SHA256withRSA");
-                privateSignature.initSign(Crypto.CUR_SIGNING_KEY);
-                privateSignature.update(regionInfo);
-
-                var rsp = new QueryCurRegionRspJson();
-
-                rsp.content = Utils.base64Encode(encryptedRegionInfoStream.toByteArray());
-                rsp.sign = Utils.base64Encode(privateSignature.sign());
+                if (rsp == null) {
+                    rsp = signRegionInfo(cacheKey.regionInfo(), cacheKey.keyId());
+                    synchronized (signedResponses) {
+                        signedResponses.put(cacheKey, rsp);
+                    }
+                }
 
                 ctx.json(rsp);
             }
@@ -266,11 +290,55 @@ public final class RegionHandler implements Router {
         Grasscutter.getLogger().info(String.format("Client %s request: query_cur_region/%s", ctx.ip(), regionName));
     }
 
+    /**
+     * Encrypts the region info in chunks with the client's key and signs it.
+     * @param regionInfo The base64 encoded region info.
+     * @param keyId The id of the client's key.
+     * @return The response to send.
+     */
+    private static QueryCurRegionRspJson signRegionInfo(String regionInfo, int keyId) throws Exception {
+        Cipher cipher = Cipher.getInstance("RSA/ECB/PKCS1Padding");
+        cipher.init(Cipher.ENCRYPT_MODE, Crypto.EncryptionKeys.get(keyId));
+        var regionInfoBytes = Utils.base64Decode(regionInfo);
+
+        //Encrypt regionInfo in chunks
+        ByteArrayOutputStream encryptedRegionInfoStream = new ByteArrayOutputStream();
+
+        //Thank you so much GH Copilot
+        int chunkSize = 256 - 11;
+        int regionInfoLength = regionInfoBytes.length;
+        int numChunks = (int) Math.ceil(regionInfoLength / (double) chunkSize);
+
+        for (int i = 0; i < numChunks; i++) {
+            byte[] chunk = Arrays.copyOfRange(regionInfoBytes, i * chunkSize, Math.min((i + 1) * chunkSize, regionInfoLength));
+            byte[] encryptedChunk = cipher.doFinal(chunk);
+            encryptedRegionInfoStream.write(encryptedChunk);
+        }
+
+        Signature privateSignature = Signature.getInstance("SHA256withRSA");
+        privateSignature.initSign(Crypto.CUR_SIGNING_KEY);
+        privateSignature.update(regionInfoBytes);
+
+        var rsp = new QueryCurRegionRspJson();
+
+        rsp.content = Utils.base64Encode(encryptedRegionInfoStream.toByteArray());
+        rsp.sign = Utils.base64Encode(privateSignature.sign());
+        return rsp;
+    }
+
+    /**
+     * The inputs of an encrypted and signed region response.
+     * The region info is the event result, so changes by plugins or the config get their own entry.
+     */
+    private record SignedRegionKey(String regionInfo, int keyId) {}
+
     /**
      * Region data container.
      */
     public static class RegionData {
         private final QueryCurrRegionHttpRsp regionQuery;
+        /* The region query encoded per client version. */
+        private final Map<Version, String> encoded = new ConcurrentHashMap<>();
 
         public RegionData(QueryCurrRegionHttpRsp prq) {
             this.regionQuery = prq;
@@ -281,7 +349,7 @@ public final class RegionHandler implements Router {
         }
 
         public String getBase64(Version version) {
-            return Utils.base64Encode(regionQuery.encodeToByteArray(version));
+            return this.encoded.computeIfAbsent(version, v -> Utils.base64Encode(regionQuery.encodeToByteArray(v)));
         }
     }
 
@@ -4,6 +4,7 @@ import emu.grasscutter.Grasscutter;
 import emu.grasscutter.database.DatabaseHelper;
 import emu.grasscutter.game.Account;
 import emu.grasscutter.game.gacha.GachaBanner;
+import emu.grasscutter.game.gacha.GachaRecord;
 import emu.grasscutter.game.gacha.GachaSystem;
 import emu.grasscutter.game.player.Player;
 import emu.grasscutter.server.http.Router;
@@ -14,13 +15,17 @@ import io.javalin.http.ContentType;
 import io.javalin.http.Context;
 import io.javalin.http.staticfiles.Location;
 import lombok.Getter;
+import org.bson.types.ObjectId;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.Date;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 
 import static emu.grasscutter.utils.Language.translate;
@@ -32,6 +37,7 @@ public final class GachaHandler implements Router {
     @Getter private static final Path gachaMappingsPath = FileUtils.getDataUserPath("gacha/mappings.js");
     @Deprecated(forRemoval = true)
     public static final String gachaMappings = gachaMappingsPath.toString();
+    private static final int PAGE_SIZE = 10;
 
     @Override public void applyRoutes(Javalin javalin) {
         javalin.get("/gacha", GachaHandler::gachaRecords);
@@ -59,8 +65,23 @@ public final class GachaHandler implements Router {
         if (ctx.queryParam("gachaType") != null)
             gachaType = Integer.parseInt(ctx.queryParam("gachaType"));
 
-        String records = DatabaseHelper.getGachaRecords(player.getUid(), page, gachaType).toString();
-        long maxPage = DatabaseHelper.getGachaRecordsMaxPage(player.getUid(), page, gachaType);
+        // Pages are looked up from the record next to them, older pages only know their number.
+        List<GachaRecord> recordList;
+        RecordCursor before = RecordCursor.parse(ctx.queryParam("before"));
+        RecordCursor after = RecordCursor.parse(ctx.queryParam("after"));
+        if (before != null) {
+            recordList = DatabaseHelper.getGachaRecordsBefore(player.getUid(), gachaType, before.date(), before.id(), PAGE_SIZE);
+        } else if (after != null) {
+            recordList = DatabaseHelper.getGachaRecordsAfter(player.getUid(), gachaType, after.date(), after.id(), PAGE_SIZE);
+        } else if (page > 0) {
+            recordList = DatabaseHelper.getGachaRecords(player.getUid(), page, gachaType, PAGE_SIZE);
+        } else {
+            recordList = DatabaseHelper.getGachaRecordsBefore(player.getUid(), gachaType, null, null, PAGE_SIZE);
+        }
+
+        String records = recordList.toString();
+        int recordCount = player.getGachaInfo().getRecordCount(player.getUid(), gachaType);
+        long maxPage = (recordCount + PAGE_SIZE - 1) / PAGE_SIZE;
 
         String template = new String(FileUtils.read(FileUtils.getDataPath("gacha/records.html")), StandardCharsets.UTF_8)
             .replace("{{REPLACE_RECORDS}}", records)
@@ -135,4 +156,22 @@ public final class GachaHandler implements Router {
         ctx.contentType(ContentType.TEXT_HTML);
         ctx.result(template);
     }
+
+    /**
+     * The position of a record in the history, written as "time_id".
+     */
+    private record RecordCursor(Date date, ObjectId id) {
+        @Nullable
+        static RecordCursor parse(@Nullable String cursor) {
+            if (cursor == null) return null;
+
+            int split = cursor.indexOf('_');
+            if (split < 0 || !ObjectId.isValid(cursor.substring(split + 1))) return null;
+            try {
+                return new RecordCursor(new Date(Long.parseLong(cursor.substring(0, split))), new ObjectId(cursor.substring(split + 1)));
+            } catch (NumberFormatException ignored) {
+                return null;
+            }
+        }
+    }
 }
@@ -7,7 +7,6 @@ import emu.grasscutter.game.props.FightProperty;
 import emu.grasscutter.net.packet.TypedPacketHandler;
 import emu.grasscutter.server.event.entity.EntityMoveEvent;
 import emu.grasscutter.server.game.GameSession;
-import emu.grasscutter.server.packet.send.PacketEntityFightPropUpdateNotify;
 import emu.grasscutter.utils.Position;
 import lombok.val;
 import org.anime_game_servers.multi_proto.gi.messages.battle.CombatInvocationsNotify;
@@ -54,16 +53,21 @@ public class HandlerCombatInvocationsNotify extends TypedPacketHandler<CombatInv
                         val motionInfo = moveInfo.getMotionInfo();
                         val motionState = motionInfo.getState();
 
-                        val position = motionInfo.getPos() != null ? new Position(motionInfo.getPos()) : null;
-                        val rotation = motionInfo.getRot() != null ? new Position(motionInfo.getRot()) : null;
-                        val speed = motionInfo.getSpeed() != null ? new Position(motionInfo.getSpeed()) : null;
+                        // Call entity move event, if anyone listens to it.
+                        if (Grasscutter.getPluginManager().hasListeners(EntityMoveEvent.class)) {
+                            val position = motionInfo.getPos() != null ? new Position(motionInfo.getPos()) : null;
+                            val rotation = motionInfo.getRot() != null ? new Position(motionInfo.getRot()) : null;
+                            val speed = motionInfo.getSpeed() != null ? new Position(motionInfo.getSpeed()) : null;
 
-                        // Call entity move event.
-                        EntityMoveEvent event = new EntityMoveEvent(entity, position, rotation, speed, motionState);
-                        event.call();
+                            EntityMoveEvent event = new EntityMoveEvent(entity, position, rotation, speed, motionState);
+                            event.call();
 
-                        if(position != null) {
-                            entity.move(event.getPosition(), event.getRotation());
+                            if(position != null) {
+                                entity.move(event.getPosition(), event.getRotation());
+                            }
+                        } else if(motionInfo.getPos() != null) {
+                            // Update the position in place
+                            entity.move(motionInfo.getPos(), motionInfo.getRot());
                         }
                         entity.setLastMoveSceneTimeMs(moveInfo.getSceneTime());
                         entity.setLastMoveReliableSeq(moveInfo.getReliableSeq());
@@ -104,7 +108,7 @@ public class HandlerCombatInvocationsNotify extends TypedPacketHandler<CombatInv
                     }
                 }
                 default -> {
-                    Grasscutter.getLogger().debug("Unhandled type: " + entry.getArgumentType().name());
+                    // Forwarded as received, without looking into the combat data.
                 }
             }
 
@@ -153,7 +157,7 @@ public class HandlerCombatInvocationsNotify extends TypedPacketHandler<CombatInv
             Grasscutter.getLogger().trace(currentHP + "/" + maxHP + "\tLandingSpeed: 0\tNo damage");
         }
         entity.setFightProperty(FightProperty.FIGHT_PROP_CUR_HP, newHP);
-        entity.getWorld().broadcastPacket(new PacketEntityFightPropUpdateNotify(entity, FightProperty.FIGHT_PROP_CUR_HP));
+        entity.getScene().queueFightPropSync(entity);
         if (newHP == 0) {
             session.getPlayer().getStaminaManager().killAvatar(session, entity, PlayerDieType.PLAYER_DIE_FALL);
         }
@@ -1,9 +1,8 @@
 package emu.grasscutter.server.packet.recv;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import emu.grasscutter.Grasscutter;
 import emu.grasscutter.database.DatabaseHelper;
+import emu.grasscutter.database.DatabaseManager;
 import emu.grasscutter.game.Account;
 import emu.grasscutter.game.player.Player;
 import emu.grasscutter.net.packet.TypedPacketHandler;
@@ -17,72 +16,54 @@ import emu.grasscutter.utils.Utils;
 import lombok.val;
 import org.anime_game_servers.multi_proto.gi.messages.general.Retcode;
 import org.anime_game_servers.multi_proto.gi.messages.player.GetPlayerTokenReq;
-import org.eclipse.jetty.client.HttpClient;
-import org.eclipse.jetty.client.util.StringContentProvider;
-import org.eclipse.jetty.util.ssl.SslContextFactory;
 
 import javax.crypto.Cipher;
 
 import static emu.grasscutter.config.Configuration.ACCOUNT;
 import static emu.grasscutter.config.Configuration.GAME_OPTIONS;
 
-import java.net.http.HttpRequest;
 import java.nio.ByteBuffer;
 import java.security.Signature;
+import java.util.concurrent.CompletableFuture;
 
 public class HandlerGetPlayerTokenReq extends TypedPacketHandler<GetPlayerTokenReq> {
 
-    public static class VerifyResult {
-        public int retcode;
-        public VerifyResultData data;
-    }
-    public static class VerifyResultIpInfo {
-        public String country_code;
-    }
-    public static class VerifyResultData {
-        public boolean guest;
-        public int account_type;
-        public int account_uid;
-        public VerifyResultIpInfo ip_info;
-    }
     @Override
     public void handle(GameSession session, byte[] header, GetPlayerTokenReq req) throws Exception {
+        // Repeated token requests are dropped until the login is done
+        session.setState(SessionState.LOADING);
 
         // Authenticate
-        String accountId = null;
-        var reservedUid = 0;
-        var isAccountBanned = false;
-        val sdkServer= Grasscutter.config.account.sdkServer;
-        if(sdkServer != null && !sdkServer.isBlank()){
-            // TODO - implement verify of combo toke from sdk server
-            SslContextFactory.Client sslContextFactory = new SslContextFactory.Client();
-            HttpClient httpclient = new HttpClient(sslContextFactory);
-            httpclient.start();
-            val request = httpclient.POST(sdkServer);
-            request.content(new StringContentProvider("{\"combo_token\": \""+req.getAccountToken()+"\", \"open_id\": \""+req.getAccountUid()+"\"}"));
-
-            val response = request.send();
-            val body = response.getContentAsString();
-            val gson = new GsonBuilder().create();
-            val comboTokenResJson = gson.fromJson(body, VerifyResult.class);
-            if(comboTokenResJson.retcode != 0){
-                session.close();
-                return;
-            }
-            accountId = Integer.toString(comboTokenResJson.data.account_uid);
-        } else {
-            Account account = DatabaseHelper.getAccountById(req.getAccountUid());
-            // Set account
-            session.setAccount(account);
-            if (account == null || !account.getToken().equals(req.getAccountToken())) {
-                session.close();
-                return;
-            }
-            accountId = account.getId();
-            isAccountBanned = account.isBanned();
-            reservedUid = account.getReservedPlayerUid();
+        val verifier = session.getServer().getSdkTokenVerifier();
+        if (verifier != null) {
+            // Verified off the logic thread, the login continues on it afterwards
+            verifier.verify(req.getAccountToken(), req.getAccountUid()).thenAcceptAsync(accountUid -> {
+                if (session.getState() != SessionState.LOADING) return;  // Disconnected meanwhile
+                if (accountUid == null) {
+                    session.close();
+                    return;
+                }
+                try {
+                    this.authenticated(session, req, Integer.toString(accountUid), 0, false);
+                } catch (Exception e) {
+                    Grasscutter.getLogger().error("Failed to log in account {}", accountUid, e);
+                    session.close();
+                }
+            }, session::execute);
+            return;
+        }
+
+        Account account = DatabaseHelper.getAccountById(req.getAccountUid());
+        // Set account
+        session.setAccount(account);
+        if (account == null || !account.getToken().equals(req.getAccountToken())) {
+            session.close();
+            return;
         }
+        this.authenticated(session, req, account.getId(), account.getReservedPlayerUid(), account.isBanned());
+    }
 
+    private void authenticated(GameSession session, GetPlayerTokenReq req, String accountId, int reservedUid, boolean isAccountBanned) throws Exception {
         if(accountId == null || !accountId.equals(req.getAccountUid())){
             return;
         }
@@ -92,18 +73,37 @@ public class HandlerGetPlayerTokenReq extends TypedPacketHandler<GetPlayerTokenR
         // Check if player object exists in server
         // NOTE: CHECKING MUST SITUATED HERE (BEFORE getPlayerByUid)! because to save firstly ,to load secondly !!!
         // TODO - optimize
-        boolean kicked = false;
         Player exists = Grasscutter.getGameServer().getPlayerByAccountId(accountId);
         if (exists != null) {
             GameSession existsSession = exists.getSession();
             if (existsSession != session) {// No self-kicking
-                exists.onLogout();//must save immediately , or the below will load old data
-                existsSession.close();
-                Grasscutter.getLogger().warn("Player {} with id {} was kicked due to duplicated login", exists.getNickname(), accountId);
-                kicked = true;
+                // The player belongs to the loop of its own world, kick it there and continue the login afterwards
+                CompletableFuture.runAsync(() -> {
+                    exists.onLogout();//must save immediately , or the below will load old data
+                    existsSession.close();
+                    Grasscutter.getLogger().warn("Player {} with id {} was kicked due to duplicated login", exists.getNickname(), accountId);
+                }, existsSession::execute).thenRunAsync(() -> {
+                    if (session.getState() != SessionState.LOADING) return;
+                    try {
+                        this.createPlayer(session, req, accountId, reservedUid, isAccountBanned, true);
+                    } catch (Exception e) {
+                        Grasscutter.getLogger().error("Failed to log in account {}", accountId, e);
+                        session.close();
+                    }
+                }, session::execute).exceptionally(e -> {
+                    Grasscutter.getLogger().error("Failed to kick the previous session of account {}", accountId, e);
+                    session.close();
+                    return null;
+                });
+                return;
             }
         }
 
+        this.createPlayer(session, req, accountId, reservedUid, isAccountBanned, false);
+    }
+
+    private void createPlayer(GameSession session, GetPlayerTokenReq req, String accountId, int reservedUid,
+                              boolean isAccountBanned, boolean kicked) throws Exception {
         //NOTE: If there are 5 online players, max count of player is 5,
         // a new client want to login by kicking one of them ,
         // I think it should be allowed
@@ -119,14 +119,36 @@ public class HandlerGetPlayerTokenReq extends TypedPacketHandler<GetPlayerTokenR
         PlayerCreationEvent event = new PlayerCreationEvent(session, Player.class);
         event.call();
 
+        this.loadPlayer(session, req, accountId, event.getPlayerClass(), reservedUid, isAccountBanned);
+    }
+
+    private void loadPlayer(GameSession session, GetPlayerTokenReq req, String accountId, Class<? extends Player> playerClass,
+                            int reservedUid, boolean isAccountBanned) throws Exception {
         // Get player.
-        Player player = DatabaseHelper.getPlayerByAccount(accountId, event.getPlayerClass());
+        Player player = DatabaseHelper.getPlayerByAccount(accountId, playerClass);
+
+        // The previous session of the player may still be written, load the player again once that is done
+        if (player != null) {
+            val flushed = DatabaseManager.getWriteQueue().whenFlushed(player.getUid());
+            if (!flushed.isDone()) {
+                flushed.thenRunAsync(() -> {
+                    if (session.getState() != SessionState.LOADING) return;
+                    try {
+                        this.loadPlayer(session, req, accountId, playerClass, reservedUid, isAccountBanned);
+                    } catch (Exception e) {
+                        Grasscutter.getLogger().error("Failed to log in account {}", accountId, e);
+                        session.close();
+                    }
+                }, session::execute);
+                return;
+            }
+        }
 
         if (player == null) {
             int nextPlayerUid = DatabaseHelper.getNextPlayerId(reservedUid);
 
             // Create player instance from event.
-            player = event.getPlayerClass().getDeclaredConstructor(GameSession.class).newInstance(session);
+            player = playerClass.getDeclaredConstructor(GameSession.class).newInstance(session);
 
             // Save to db
             DatabaseHelper.generatePlayerUid(player, nextPlayerUid);
@@ -142,9 +164,22 @@ public class HandlerGetPlayerTokenReq extends TypedPacketHandler<GetPlayerTokenR
             return;
         }
 
-        // Load player from database
-        player.loadFromDatabase();
+        // Load player from database, the queries run concurrently off the logic thread
+        Player loadingPlayer = player;
+        loadingPlayer.fetchLoginData().thenAcceptAsync(data -> {
+            // The session may have been closed or have started another login meanwhile
+            if (session.getState() != SessionState.LOADING || session.getPlayer() != loadingPlayer) return;
+
+            loadingPlayer.loadFromDatabase(data);
+            this.finishLogin(session, req);
+        }, session::execute).exceptionally(e -> {
+            Grasscutter.getLogger().error("Failed to load player {} from the database", loadingPlayer.getUid(), e);
+            session.close();
+            return null;
+        });
+    }
 
+    private void finishLogin(GameSession session, GetPlayerTokenReq req) {
         // Set session state
         session.setUseSecretKey(true);
         session.setState(SessionState.WAITING_FOR_LOGIN);
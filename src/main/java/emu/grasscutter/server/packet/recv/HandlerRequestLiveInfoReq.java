@@ -16,7 +16,7 @@ public class HandlerRequestLiveInfoReq extends TypedPacketHandler<RequestLiveInf
         session.send(new PacketRequestLiveInfoRsp(req.getLiveId(), "https://cdn.flowplayer.com/a30bd6bc-f98b-47bc-abf5-97633d4faea0/hls/de3f6ca7-2db3-4689-8160-0f574a5996ad/playlist.m3u8"));
         Grasscutter.getGameServer().getScheduler().scheduleDelayedTask(() -> {
             session.send(new PacketLiveStartNotify(req.getLiveId()));
-        }, 10);
+        }, 10, session::execute);
     }
 
 }
@@ -32,9 +32,17 @@ public class HandlerUnionCmdNotify extends TypedPacketHandler<UnionCmdNotify> {
         session.getPlayer().getCombatInvokeHandler().update(session.getPlayer());
         session.getPlayer().getAbilityInvokeHandler().update(session.getPlayer());
 
-        // Handle attack results last
-        while (!session.getPlayer().getAttackResults().isEmpty()) {
-            session.getPlayer().getScene().handleAttack(session.getPlayer().getAttackResults().poll());
+        // Handle attack results last, the hp changes they cause are sent once per entity
+        val player = session.getPlayer();
+        val scene = player.getScene();
+        if (scene == null) {
+            player.getAttackResults().clear();
+        } else if (!player.getAttackResults().isEmpty()) {
+            scene.batchFightPropSync(() -> {
+                while (!player.getAttackResults().isEmpty()) {
+                    scene.handleAttack(player.getAttackResults().poll());
+                }
+            });
         }
     }
 }
@@ -24,4 +24,10 @@ public class PacketEntityFightPropUpdateNotify extends BaseTypedPacket<EntityFig
         props.forEach(p -> fightPropMap.put(p.getId(), entity.getFightProperty(p)));
         proto.setFightPropMap(fightPropMap);
 	}
+
+    public PacketEntityFightPropUpdateNotify(GameEntity entity, Map<Integer, Float> fightPropMap) {
+        super(new EntityFightPropUpdateNotify());
+        proto.setEntityId(entity.getId());
+        proto.setFightPropMap(fightPropMap);
+	}
 }
@@ -0,0 +1,152 @@
+package emu.grasscutter.server.scheduler;
+
+import emu.grasscutter.Grasscutter;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.TimerTask;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Server-wide timer for short periodic callbacks, like stamina updates.
+ * All timers share one hashed wheel thread which only hands the callbacks to the executor
+ * they were registered with, usually the logic loop of the player's world.
+ */
+public final class GameTimerService {
+    private static final long TICK_MILLIS = 10;
+    private static final int TICKS_PER_WHEEL = 512;
+
+    private final HashedWheelTimer wheel;
+    private final AtomicInteger registeredTimers = new AtomicInteger();
+    private final LongAdder firedTimers = new LongAdder();
+    private final LongAdder skippedTimers = new LongAdder();
+    private final LongAdder totalLagNanos = new LongAdder();
+    private final AtomicLong maxLagNanos = new AtomicLong();
+
+    public GameTimerService() {
+        this.wheel = new HashedWheelTimer(new DefaultThreadFactory("game-timer", true),
+            TICK_MILLIS, TimeUnit.MILLISECONDS, TICKS_PER_WHEEL);
+
+        this.wheel.newTimeout(this::logStatistics, 1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Runs the task periodically on the executor. A run is skipped if the previous one is still
+     * waiting on the executor, so a busy loop does not build up a backlog of runs.
+     * @param executor Where the task runs, e.g. {@code player.getSession()::execute}.
+     * @return The handle to cancel the timer with.
+     */
+    public GameTimer scheduleAtFixedRate(Executor executor, Runnable task, long initialDelay, long period, TimeUnit unit) {
+        GameTimer timer = new GameTimer(executor, task, unit.toNanos(period));
+        timer.start(unit.toNanos(initialDelay));
+        return timer;
+    }
+
+    /**
+     * @return The amount of timers that are currently registered.
+     */
+    public int getRegisteredTimers() {
+        return this.registeredTimers.get();
+    }
+
+    /**
+     * @return The largest delay between a timer being due and being handed to its executor, in milliseconds.
+     */
+    public long getMaxLagMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(this.maxLagNanos.get());
+    }
+
+    public void shutdown() {
+        this.wheel.stop();
+    }
+
+    private void logStatistics(Timeout timeout) {
+        this.wheel.newTimeout(this::logStatistics, 1, TimeUnit.MINUTES);
+        if (!Grasscutter.getLogger().isDebugEnabled()) {
+            return;
+        }
+
+        long fired = this.firedTimers.sumThenReset();
+        long lag = this.totalLagNanos.sumThenReset();
+        Grasscutter.getLogger().debug("Game timers: {} registered, {} fired and {} skipped in the last minute, average lag {} ms, max lag {} ms",
+            this.getRegisteredTimers(), fired, this.skippedTimers.sumThenReset(),
+            fired > 0 ? TimeUnit.NANOSECONDS.toMillis(lag / fired) : 0, TimeUnit.NANOSECONDS.toMillis(this.maxLagNanos.getAndSet(0)));
+    }
+
+    public final class GameTimer implements TimerTask {
+        private final Executor executor;
+        private final Runnable task;
+        private final long periodNanos;
+        private final AtomicBoolean queued = new AtomicBoolean();
+        private volatile boolean cancelled;
+        private volatile Timeout timeout;
+        private long deadline;
+
+        private GameTimer(Executor executor, Runnable task, long periodNanos) {
+            this.executor = executor;
+            this.task = task;
+            this.periodNanos = periodNanos;
+        }
+
+        private void start(long delayNanos) {
+            registeredTimers.incrementAndGet();
+            this.deadline = System.nanoTime() + delayNanos;
+            this.timeout = wheel.newTimeout(this, delayNanos, TimeUnit.NANOSECONDS);
+        }
+
+        public void cancel() {
+            if (this.cancelled) return;
+
+            this.cancelled = true;
+            this.timeout.cancel();
+            registeredTimers.decrementAndGet();
+        }
+
+        public boolean isCancelled() {
+            return this.cancelled;
+        }
+
+        @Override
+        public void run(Timeout timeout) {
+            if (this.cancelled) return;
+
+            long now = System.nanoTime();
+            long lag = now - this.deadline;
+            totalLagNanos.add(lag);
+            maxLagNanos.accumulateAndGet(lag, Math::max);
+
+            if (this.queued.compareAndSet(false, true)) {
+                firedTimers.increment();
+                this.executor.execute(this::runTask);
+            } else {
+                skippedTimers.increment();
+            }
+
+            // Keep the fixed rate, but drop runs that were missed entirely
+            this.deadline += this.periodNanos;
+            if (this.deadline < now) {
+                this.deadline = now + this.periodNanos;
+            }
+            if (!this.cancelled) {
+                this.timeout = wheel.newTimeout(this, this.deadline - now, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private void runTask() {
+            this.queued.set(false);
+            if (this.cancelled) return;
+
+            try {
+                this.task.run();
+            } catch (Exception e) {
+                Grasscutter.getLogger().error("Exception in game timer", e);
+            }
+        }
+    }
+}
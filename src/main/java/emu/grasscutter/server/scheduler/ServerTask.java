@@ -3,23 +3,37 @@ package emu.grasscutter.server.scheduler;
 import emu.grasscutter.Grasscutter;
 import lombok.*;
 
+import javax.annotation.Nullable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
 /**
  * This class works the same as a runnable, except with more information.
  */
-public final class ServerTask implements Runnable {
+public final class ServerTask implements Runnable, Comparable<ServerTask> {
     /* The runnable to run. */
     private final Runnable runnable;
     /* This ID is assigned by the scheduler. */
     @Getter private final int taskId;
-    /* The period at which the task should be run. */
-    /* The delay between the first execute. */
-    private final int period, delay;
+    /* The period at which the task should be run, in nanoseconds. 0 runs it only once. */
+    private final long period;
+    /* The time the task should run next, as of System.nanoTime(). */
+    @Getter private long nextRun;
+    /* Set once the task should not run anymore. */
+    private volatile boolean canceled = false;
+    /* The executor the runnable is handed to, null to run it on the scheduler thread. */
+    @Nullable private final Executor executor;
+
+    public ServerTask(Runnable runnable, int taskId, long period, long nextRun) {
+        this(runnable, taskId, period, nextRun, null);
+    }
 
-    public ServerTask(Runnable runnable, int taskId, int period, int delay) {
+    public ServerTask(Runnable runnable, int taskId, long period, long nextRun, @Nullable Executor executor) {
         this.runnable = runnable;
         this.taskId = taskId;
         this.period = period;
-        this.delay = delay;
+        this.nextRun = nextRun;
+        this.executor = executor;
     }
 
     /* The amount of times the task has been run. */
@@ -32,33 +46,54 @@ public final class ServerTask implements Runnable {
         Grasscutter.getGameServer().getScheduler().cancelTask(this.taskId);
     }
 
-    /**
-     * Checks if the task should run at the current tick.
-     * @return True if the task should run, false otherwise.
-     */
-    public boolean shouldRun() {
-        // Increase tick count.
-        var ticks = this.ticks++;
-        if(this.delay != -1) {
-            return ticks == this.delay-1;
-        } else if(this.period != -1)
-            return ticks % this.period == 0;
-        else return true;
+    void markCanceled() {
+        this.canceled = true;
+    }
+
+    public boolean isCanceled() {
+        return this.canceled;
     }
 
     /**
-     * Checks if the task should be canceled.
-     * @return True if the task should be canceled, false otherwise.
+     * Moves the task to its next run.
+     * @return False if the task does not repeat.
      */
-    public boolean shouldCancel() {
-        return this.period == -1 && ticks >= delay;
+    boolean reschedule(long now) {
+        if (this.period <= 0 || this.canceled) return false;
+
+        this.nextRun += this.period;
+        // Skip runs that were missed entirely instead of running them back to back
+        if (this.nextRun < now) {
+            this.nextRun = now + this.period;
+        }
+        return true;
+    }
+
+    @Override public int compareTo(ServerTask other) {
+        int result = Long.compare(this.nextRun - other.nextRun, 0);
+        return result != 0 ? result : Integer.compare(this.taskId, other.taskId);
     }
 
     /**
      * Runs the task.
      */
     @Override public void run() {
-        // Run the runnable.
+        this.ticks++;
+
+        if (this.executor == null) {
+            this.runRunnable();
+            return;
+        }
+
+        // Hand the runnable to the thread that owns what it changes.
+        try {
+            this.executor.execute(this::runRunnable);
+        } catch (RejectedExecutionException ex) {
+            Grasscutter.getLogger().warn("Task {} was rejected by its executor", this.taskId);
+        }
+    }
+
+    private void runRunnable() {
         try {
             this.runnable.run();
         } catch (Exception ex){
@@ -1,65 +1,157 @@
 package emu.grasscutter.server.scheduler;
 
+import emu.grasscutter.Grasscutter;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.Getter;
+
+import javax.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * A class to manage all time-based tasks scheduled on the server.
  * This handles both synchronous and asynchronous tasks.
  *
+ * Synchronous tasks run on the scheduler thread, ordered by the time they are due.
+ * Tasks that change game state should pass the executor of their owner, e.g. the world's logic loop,
+ * the scheduler thread then only hands them off.
+ * Asynchronous tasks run on a bounded worker pool.
+ *
  * Developers note: A server tick is ONE REAL-TIME SECOND.
+ * The tick based methods are kept for compatibility, the millisecond based ones are more precise.
  */
 public final class ServerTaskScheduler {
+    /* How long running the due tasks may take before it is reported. */
+    private static final long OVERRUN_MILLIS = 50;
+    private static final long TICK_MILLIS = 1000;
+
     /* A map to contain all running tasks. */
     private final ConcurrentHashMap<Integer, ServerTask> tasks
         = new ConcurrentHashMap<>();
     /* A map to contain all async tasks. */
     private final ConcurrentHashMap<Integer, AsyncServerTask> asyncTasks
         = new ConcurrentHashMap<>();
+    /* The scheduled tasks, the next one due first. Guarded by itself. */
+    private final PriorityQueue<ServerTask> queue = new PriorityQueue<>();
+    /* The threads that run async tasks. */
+    private final ExecutorService asyncExecutor;
 
     /* The ID assigned to the next runnable. */
-    private int nextTaskId = 0;
+    private final AtomicInteger nextTaskId = new AtomicInteger();
+
+    private final LongAdder executedTasks = new LongAdder();
+    @Getter private volatile long overruns = 0;
+    @Getter private volatile long maxLagMillis = 0;
+    private volatile Thread thread;
+
+    public ServerTaskScheduler() {
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+        this.asyncExecutor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), new DefaultThreadFactory("async-task", true));
+    }
 
     /**
-     * Ran every server tick.
-     * Attempts to run all scheduled tasks.
+     * Starts the scheduler thread.
+     */
+    public synchronized void start() {
+        if (this.thread != null) return;
+
+        this.thread = new DefaultThreadFactory("server-scheduler", true).newThread(this::runLoop);
+        this.thread.start();
+    }
+
+    public synchronized void shutdown() {
+        if (this.thread != null) {
+            this.thread.interrupt();
+            this.thread = null;
+        }
+        this.asyncExecutor.shutdown();
+    }
+
+    private void runLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                this.runTasks();
+
+                synchronized (this.queue) {
+                    ServerTask next = this.queue.peek();
+                    long waitNanos = next == null ? TimeUnit.SECONDS.toNanos(1) : next.getNextRun() - System.nanoTime();
+                    if (waitNanos > 0) {
+                        TimeUnit.NANOSECONDS.timedWait(this.queue, waitNanos);
+                    }
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                Grasscutter.getLogger().error("Exception in the server scheduler", e);
+            }
+        }
+    }
+
+    /**
+     * Runs all scheduled tasks that are due.
      * This method is synchronous and will block until all tasks are complete.
      */
     public void runTasks() {
-        // Skip if there are no tasks.
-        if(this.tasks.isEmpty())
-            return;
+        long now = System.nanoTime();
 
-        // Run all tasks.
-        for(ServerTask task : this.tasks.values()) {
-            // Check if the task should run.
-            if (task.shouldRun()) {
-                // Run the task.
-                task.run();
+        // Take the due tasks, later tasks are not looked at.
+        List<ServerTask> due = new ArrayList<>();
+        synchronized (this.queue) {
+            while (!this.queue.isEmpty() && this.queue.peek().getNextRun() - now <= 0) {
+                due.add(this.queue.poll());
             }
+        }
+        if (due.isEmpty())
+            return;
+
+        for (ServerTask task : due) {
+            if (task.isCanceled())
+                continue;
 
-            // Check if the task should be canceled.
-            if (task.shouldCancel()) {
-                // Cancel the task.
-                this.cancelTask(task.getTaskId());
+            long lag = TimeUnit.NANOSECONDS.toMillis(now - task.getNextRun());
+            if (lag > this.maxLagMillis) this.maxLagMillis = lag;
+
+            // Run the task.
+            task.run();
+            this.executedTasks.increment();
+
+            // Queue the next run, or forget about the task.
+            if (task.reschedule(System.nanoTime())) {
+                this.enqueue(task);
+            } else {
+                this.tasks.remove(task.getTaskId(), task);
             }
         }
 
-        // Run all async tasks.
-        for(AsyncServerTask task : this.asyncTasks.values()) {
-            if(!task.hasStarted()) {
-                // Create a thread for the task.
-                Thread thread = new Thread(task);
-                // Start the thread.
-                thread.start();
-            } else if(task.isFinished()) {
-                // Cancel the task.
-                this.asyncTasks.remove(task.getTaskId());
-                // Run the task's callback.
-                task.complete();
-            }
+        long tookMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - now);
+        if (tookMillis > OVERRUN_MILLIS) {
+            this.overruns++;
+            Grasscutter.getLogger().warn("Running {} scheduled tasks took {} ms", due.size(), tookMillis);
         }
     }
 
+    /**
+     * @return The amount of tasks that are waiting to be run.
+     */
+    public int getQueueSize() {
+        return this.tasks.size();
+    }
+
+    public long getExecutedTasks() {
+        return this.executedTasks.sum();
+    }
+
     /**
      * Gets a task from the scheduler.
      * @param taskId The ID of the task to get.
@@ -83,31 +175,47 @@ public final class ServerTaskScheduler {
      * @param taskId The ID of the task to remove.
      */
     public void cancelTask(int taskId) {
-        this.tasks.remove(taskId);
+        // The task stays queued until it is due, it is skipped then.
+        ServerTask task = this.tasks.remove(taskId);
+        if (task != null)
+            task.markCanceled();
     }
 
     /**
      * Schedules a task to be run on a separate thread.
-     * The task runs on the next server tick.
+     * The task is handed to the worker pool right away.
      * @param runnable The runnable to run.
      * @return The ID of the task.
      */
     public int scheduleAsyncTask(Runnable runnable) {
         // Get the next task ID.
-        var taskId = this.nextTaskId++;
+        var taskId = this.nextTaskId.getAndIncrement();
         // Create a new task.
-        this.asyncTasks.put(taskId, new AsyncServerTask(runnable, taskId));
+        var task = new AsyncServerTask(runnable, taskId);
+        this.asyncTasks.put(taskId, task);
+
+        this.asyncExecutor.execute(() -> {
+            try {
+                task.run();
+            } catch (Exception ex) {
+                Grasscutter.getLogger().error("Exception during async task: ", ex);
+            } finally {
+                this.asyncTasks.remove(taskId);
+                // Run the task's callback on the scheduler thread.
+                this.scheduleTask(task::complete);
+            }
+        });
         // Return the task ID.
         return taskId;
     }
 
     /**
-     * Schedules a task to be run on the next server tick.
+     * Schedules a task to be run as soon as possible.
      * @param runnable The runnable to run.
      * @return The ID of the task.
      */
     public int scheduleTask(Runnable runnable) {
-        return this.scheduleDelayedRepeatingTask(runnable, -1, -1);
+        return this.scheduleDelayedRepeatingTaskMillis(runnable, 0, 0);
     }
 
     /**
@@ -117,17 +225,39 @@ public final class ServerTaskScheduler {
      * @return The ID of the task.
      */
     public int scheduleDelayedTask(Runnable runnable, int delay) {
-        return this.scheduleDelayedRepeatingTask(runnable, -1, delay);
+        return this.scheduleDelayedTaskMillis(runnable, delay * TICK_MILLIS);
+    }
+
+    /**
+     * Schedules a task to be run on an executor after the amount of ticks has passed.
+     * @param runnable The runnable to run.
+     * @param delay The amount of ticks to wait before running.
+     * @param executor The executor to run the task on, e.g. a logic loop.
+     * @return The ID of the task.
+     */
+    public int scheduleDelayedTask(Runnable runnable, int delay, Executor executor) {
+        return this.scheduleDelayedRepeatingTaskMillis(runnable, 0, delay * TICK_MILLIS, executor);
+    }
+
+    /**
+     * Schedules a task to be run after the amount of milliseconds has passed.
+     * @param runnable The runnable to run.
+     * @param delay The amount of milliseconds to wait before running.
+     * @return The ID of the task.
+     */
+    public int scheduleDelayedTaskMillis(Runnable runnable, long delay) {
+        return this.scheduleDelayedRepeatingTaskMillis(runnable, 0, delay);
     }
 
     /**
      * Schedules a task to be run every amount of ticks.
+     * The first run happens right away.
      * @param runnable The runnable to run.
      * @param period The amount of ticks to wait before running again.
      * @return The ID of the task.
      */
     public int scheduleRepeatingTask(Runnable runnable, int period) {
-        return this.scheduleDelayedRepeatingTask(runnable, period, -1);
+        return this.scheduleDelayedRepeatingTaskMillis(runnable, period * TICK_MILLIS, 0);
     }
 
     /**
@@ -138,11 +268,46 @@ public final class ServerTaskScheduler {
      * @return The ID of the task.
      */
     public int scheduleDelayedRepeatingTask(Runnable runnable, int period, int delay) {
+        return this.scheduleDelayedRepeatingTaskMillis(runnable, Math.max(period, 0) * TICK_MILLIS, Math.max(delay, 0) * TICK_MILLIS);
+    }
+
+    /**
+     * Schedules a task to be run after the amount of milliseconds has passed.
+     * @param runnable The runnable to run.
+     * @param period The amount of milliseconds to wait before running again, 0 to run only once.
+     * @param delay The amount of milliseconds to wait before running the first time.
+     * @return The ID of the task.
+     */
+    public int scheduleDelayedRepeatingTaskMillis(Runnable runnable, long period, long delay) {
+        return this.scheduleDelayedRepeatingTaskMillis(runnable, period, delay, null);
+    }
+
+    /**
+     * Schedules a task to be run on an executor after the amount of milliseconds has passed.
+     * @param runnable The runnable to run.
+     * @param period The amount of milliseconds to wait before running again, 0 to run only once.
+     * @param delay The amount of milliseconds to wait before running the first time.
+     * @param executor The executor to run the task on, null to run it on the scheduler thread.
+     * @return The ID of the task.
+     */
+    public int scheduleDelayedRepeatingTaskMillis(Runnable runnable, long period, long delay, @Nullable Executor executor) {
         // Get the next task ID.
-        var taskId = this.nextTaskId++;
+        var taskId = this.nextTaskId.getAndIncrement();
         // Create a new task.
-        this.tasks.put(taskId, new ServerTask(runnable, taskId, period, delay));
+        var task = new ServerTask(runnable, taskId,
+            TimeUnit.MILLISECONDS.toNanos(period), System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay), executor);
+        this.tasks.put(taskId, task);
+        this.enqueue(task);
         // Return the task ID.
         return taskId;
     }
+
+    private void enqueue(ServerTask task) {
+        synchronized (this.queue) {
+            this.queue.add(task);
+            // Wake the scheduler thread up if this task is due before the one it waits for.
+            if (this.queue.peek() == task)
+                this.queue.notifyAll();
+        }
+    }
 }
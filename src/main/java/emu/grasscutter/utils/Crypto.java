@@ -13,6 +13,7 @@ import java.util.HashMap;
 import java.util.regex.Pattern;
 
 import emu.grasscutter.Grasscutter;
+import io.netty.buffer.ByteBuf;
 
 public final class Crypto {
     private static final SecureRandom secureRandom = new SecureRandom();
@@ -70,6 +71,27 @@ public final class Crypto {
         }
     }
 
+    /**
+     * XORs the readable bytes of the buffer in place.
+     */
+    public static void xor(ByteBuf packet, byte[] key) {
+        int start = packet.readerIndex();
+        int length = packet.readableBytes();
+
+        if (packet.hasArray()) {
+            byte[] array = packet.array();
+            int offset = packet.arrayOffset() + start;
+            for (int i = 0; i < length; i++) {
+                array[offset + i] ^= key[i % key.length];
+            }
+            return;
+        }
+
+        for (int i = 0; i < length; i++) {
+            packet.setByte(start + i, packet.getByte(start + i) ^ key[i % key.length]);
+        }
+    }
+
     public static byte[] createSessionKey(int length) {
         byte[] bytes = new byte[length];
         secureRandom.nextBytes(bytes);
@@ -0,0 +1,42 @@
+package emu.grasscutter.utils;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the most recent duration samples of an operation to report percentiles over them.
+ */
+public class LatencyRecorder {
+    private final long[] samples;
+    private int next;
+    private int count;
+
+    /**
+     * @param capacity The amount of recent samples to keep.
+     */
+    public LatencyRecorder(int capacity) {
+        this.samples = new long[capacity];
+    }
+
+    public synchronized void record(long nanos) {
+        this.samples[this.next] = nanos;
+        this.next = (this.next + 1) % this.samples.length;
+        this.count = Math.min(this.count + 1, this.samples.length);
+    }
+
+    /**
+     * @param percentile The percentile between 0 and 100, e.g. 99.
+     * @return The duration in milliseconds that this percentile of the recent samples stayed under.
+     */
+    public long getPercentileMillis(double percentile) {
+        long[] sorted;
+        synchronized (this) {
+            if (this.count == 0) return 0;
+            sorted = Arrays.copyOf(this.samples, this.count);
+        }
+
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return TimeUnit.NANOSECONDS.toMillis(sorted[Math.max(0, Math.min(index, sorted.length - 1))]);
+    }
+}
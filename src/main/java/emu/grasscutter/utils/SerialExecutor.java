@@ -0,0 +1,147 @@
+package emu.grasscutter.utils;
+
+import emu.grasscutter.Grasscutter;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lane that runs its tasks one at a time, in submission order, on a shared executor.
+ * Any number of lanes can share one pool without two tasks of the same lane ever running concurrently.
+ * The amount of queued tasks is bounded: submitters outside of a lane wait for space for a short while,
+ * tasks that still do not fit are dropped and counted instead of throwing.
+ */
+public class SerialExecutor implements Executor {
+    // Amount of tasks run before the pool thread is handed to the next lane
+    private static final int BATCH_SIZE = 64;
+    private static final ThreadLocal<SerialExecutor> currentLane = new ThreadLocal<>();
+
+    private final Executor executor;
+    private final int capacity;
+    private final long maxWaitMillis;
+
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final LongAdder executedTasks = new LongAdder();
+    private final LongAdder droppedTasks = new LongAdder();
+
+    /**
+     * @param executor The pool that runs the tasks.
+     * @param capacity The maximum amount of queued tasks.
+     * @param maxWaitMillis How long a submitter waits for space when the lane is full.
+     */
+    public SerialExecutor(Executor executor, int capacity, long maxWaitMillis) {
+        this.executor = executor;
+        this.capacity = capacity;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    /**
+     * Queues a task on this lane.
+     * @return False if the lane stayed full and the task was dropped.
+     */
+    public boolean submit(Runnable task) {
+        if (!this.reserve()) {
+            this.droppedTasks.increment();
+            return false;
+        }
+
+        this.tasks.add(task);
+        this.schedule();
+        return true;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        this.submit(task);
+    }
+
+    /**
+     * @return True if the current thread is running a task of any lane.
+     */
+    public static boolean inLane() {
+        return currentLane.get() != null;
+    }
+
+    public int getQueueSize() {
+        return this.queued.get();
+    }
+
+    public long getExecutedTasks() {
+        return this.executedTasks.sum();
+    }
+
+    public long getDroppedTasks() {
+        return this.droppedTasks.sum();
+    }
+
+    private boolean reserve() {
+        if (this.tryReserve()) return true;
+
+        // Pool threads must not block, the tasks that would free up space might need them
+        if (inLane() || this.maxWaitMillis <= 0) return false;
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.maxWaitMillis);
+        synchronized (this) {
+            while (!this.tryReserve()) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining <= 0) return false;
+                try {
+                    this.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean tryReserve() {
+        int size;
+        do {
+            size = this.queued.get();
+            if (size >= this.capacity) return false;
+        } while (!this.queued.compareAndSet(size, size + 1));
+        return true;
+    }
+
+    private void schedule() {
+        if (this.scheduled.compareAndSet(false, true)) {
+            this.executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        currentLane.set(this);
+        try {
+            Runnable task;
+            for (int i = 0; i < BATCH_SIZE && (task = this.tasks.poll()) != null; i++) {
+                try {
+                    task.run();
+                } catch (Throwable t) {
+                    Grasscutter.getLogger().error("Exception in serial task", t);
+                } finally {
+                    this.executedTasks.increment();
+                    if (this.queued.getAndDecrement() >= this.capacity) {
+                        synchronized (this) {
+                            this.notifyAll();
+                        }
+                    }
+                }
+            }
+        } finally {
+            currentLane.remove();
+            this.scheduled.set(false);
+            if (!this.tasks.isEmpty()) {
+                this.schedule();
+            }
+        }
+    }
+}
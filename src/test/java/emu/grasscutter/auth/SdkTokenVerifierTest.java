@@ -0,0 +1,126 @@
+package emu.grasscutter.auth;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies tokens against a stub SDK server on the loopback interface.
+ */
+class SdkTokenVerifierTest {
+    private static final String SUCCESS = "{\"retcode\":0,\"data\":{\"guest\":false,\"account_type\":1,\"account_uid\":10001}}";
+    private static final String REJECTED = "{\"retcode\":-210,\"message\":\"token error\"}";
+
+    private final AtomicInteger served = new AtomicInteger();
+    private ExecutorService serverExecutor;
+    private HttpServer server;
+    private volatile String responseBody = SUCCESS;
+    private volatile long responseDelayMillis;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        this.serverExecutor = Executors.newCachedThreadPool();
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.server.createContext("/verify", this::handle);
+        this.server.setExecutor(this.serverExecutor);
+        this.server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        this.server.stop(0);
+        this.serverExecutor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        this.served.incrementAndGet();
+        try (exchange) {
+            exchange.getRequestBody().readAllBytes();
+            if (this.responseDelayMillis > 0) {
+                Thread.sleep(this.responseDelayMillis);
+            }
+
+            byte[] body = this.responseBody.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private SdkTokenVerifier createVerifier(long timeoutMillis, long cacheSeconds) {
+        String url = "http://" + this.server.getAddress().getHostString() + ":" + this.server.getAddress().getPort() + "/verify";
+        return new SdkTokenVerifier(url, timeoutMillis, cacheSeconds);
+    }
+
+    @Test
+    void returnsTheAccountUidOfAValidToken() throws Exception {
+        SdkTokenVerifier verifier = this.createVerifier(2000, 0);
+        try {
+            assertEquals(10001, verifier.verify("token", "10001").get(5, TimeUnit.SECONDS));
+            assertEquals(1, verifier.getRequests());
+            assertEquals(0, verifier.getFailures());
+        } finally {
+            verifier.shutdown();
+        }
+    }
+
+    @Test
+    void rejectsATokenTheServerAnswersWithAnErrorRetcode() throws Exception {
+        this.responseBody = REJECTED;
+        SdkTokenVerifier verifier = this.createVerifier(2000, 60);
+        try {
+            assertNull(verifier.verify("token", "10001").get(5, TimeUnit.SECONDS));
+            // Rejections are not cached
+            assertNull(verifier.verify("token", "10001").get(5, TimeUnit.SECONDS));
+            assertEquals(2, this.served.get());
+            assertEquals(0, verifier.getCacheHits());
+        } finally {
+            verifier.shutdown();
+        }
+    }
+
+    @Test
+    void failsAVerificationThatTimesOut() throws Exception {
+        this.responseDelayMillis = 2000;
+        SdkTokenVerifier verifier = this.createVerifier(200, 0);
+        try {
+            assertNull(verifier.verify("token", "10001").get(5, TimeUnit.SECONDS));
+            assertEquals(1, verifier.getFailures());
+        } finally {
+            verifier.shutdown();
+        }
+    }
+
+    @Test
+    void reusesACachedVerification() throws Exception {
+        SdkTokenVerifier verifier = this.createVerifier(2000, 60);
+        try {
+            assertEquals(10001, verifier.verify("token", "10001").get(5, TimeUnit.SECONDS));
+            assertEquals(10001, verifier.verify("token", "10001").get(5, TimeUnit.SECONDS));
+            assertEquals(1, this.served.get());
+            assertEquals(1, verifier.getRequests());
+            assertEquals(1, verifier.getCacheHits());
+
+            // Another token is not served from the cache
+            assertEquals(10001, verifier.verify("other", "10001").get(5, TimeUnit.SECONDS));
+            assertEquals(2, this.served.get());
+        } finally {
+            verifier.shutdown();
+        }
+    }
+}